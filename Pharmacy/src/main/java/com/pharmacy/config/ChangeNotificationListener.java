@@ -0,0 +1,191 @@
+package com.pharmacy.config;
+
+import com.pharmacy.dao.TableChangedEvent;
+import com.pharmacy.dao.WorkflowChangedEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Listens on the pharmacy_change channel (see V4__change_notify.sql) and republishes each
+ * notification as a {@link TableChangedEvent}, so in-process caches on every instance drop rows
+ * changed anywhere. Notifications on pharmacy_workflow (V9__workflow_notify.sql) become
+ * {@link WorkflowChangedEvent}s. Uses its own connection outside the pools, since LISTEN ties it up for good.
+ * After the connection drops it reconnects with backoff and publishes a resync-all event,
+ * because notifications sent while it was away are lost. Waiting for notifications never
+ * touches the socket's write side, so a half-open connection would look merely quiet; a
+ * periodic SELECT 1, bounded by the socket timeout, finds it.
+ */
+@Component
+public class ChangeNotificationListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeNotificationListener.class);
+
+    static final String CHANNEL = "pharmacy_change";
+    static final String WORKFLOW_CHANNEL = "pharmacy_workflow";
+    private static final int POLL_TIMEOUT_MS = 500;
+
+    private final DataSourceProperties properties;
+    private final ApplicationEventPublisher events;
+    private final boolean enabled;
+    private final long maxBackoffMillis;
+    private final long heartbeatNanos;
+    private final long heartbeatTimeoutSeconds;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public ChangeNotificationListener(DataSourceProperties properties, ApplicationEventPublisher events,
+                                      @Value("${pharmacy.change-notify.enabled:true}") boolean enabled,
+                                      @Value("${pharmacy.change-notify.max-backoff:30s}") Duration maxBackoff,
+                                      @Value("${pharmacy.change-notify.heartbeat-interval:10s}") Duration heartbeatInterval,
+                                      @Value("${pharmacy.change-notify.heartbeat-timeout:5s}") Duration heartbeatTimeout) {
+        this.properties = properties;
+        this.events = events;
+        this.enabled = enabled;
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+        this.heartbeatTimeoutSeconds = Math.max(1, heartbeatTimeout.toSeconds());
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "pg-change-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long backoff = 1000;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection conn = connect()) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                    st.execute("LISTEN " + WORKFLOW_CHANNEL);
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                if (connectedBefore) {
+                    log.info("Change notification connection restored, resyncing caches");
+                    events.publishEvent(TableChangedEvent.resyncAll());
+                }
+                connectedBefore = true;
+                backoff = 1000;
+
+                long lastHeartbeat = System.nanoTime();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification n : notifications) {
+                            if (WORKFLOW_CHANNEL.equals(n.getName())) {
+                                dispatchWorkflow(n.getParameter());
+                            } else {
+                                dispatch(n.getParameter());
+                            }
+                        }
+                    }
+                    if (System.nanoTime() - lastHeartbeat >= heartbeatNanos) {
+                        try (Statement st = conn.createStatement()) {
+                            st.execute("SELECT 1");
+                        }
+                        lastHeartbeat = System.nanoTime();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Change notification connection failed, retrying in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        }
+    }
+
+    // the socket timeout bounds the heartbeat; getNotifications sets its own timeout while it waits
+    private Connection connect() throws SQLException {
+        Properties props = new Properties();
+        if (properties.determineUsername() != null) {
+            props.setProperty("user", properties.determineUsername());
+        }
+        if (properties.determinePassword() != null) {
+            props.setProperty("password", properties.determinePassword());
+        }
+        props.setProperty("socketTimeout", Long.toString(heartbeatTimeoutSeconds));
+        props.setProperty("tcpKeepAlive", "true");
+        return DriverManager.getConnection(properties.determineUrl(), props);
+    }
+
+    // payload is table:op:id, id empty for TRUNCATE
+    private void dispatch(String payload) {
+        String[] parts = payload.split(":", 3);
+        if (parts.length < 3) {
+            log.warn("Ignoring malformed change notification '{}'", payload);
+            return;
+        }
+        Long id = null;
+        if (!parts[2].isEmpty()) {
+            try {
+                id = Long.valueOf(parts[2]);
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed change notification '{}'", payload);
+                return;
+            }
+        }
+        try {
+            events.publishEvent(new TableChangedEvent(parts[0], id));
+        } catch (RuntimeException e) {
+            // a failing listener must not kill the notification thread
+            log.error("Handling change notification '{}' failed", payload, e);
+        }
+    }
+
+    private void dispatchWorkflow(String payload) {
+        WorkflowChangedEvent event;
+        try {
+            event = WorkflowChangedEvent.fromPayload(payload);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed workflow notification '{}'", payload);
+            return;
+        }
+        try {
+            events.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.error("Handling workflow notification '{}' failed", payload, e);
+        }
+    }
+}
@@ -1,16 +1,128 @@
 package com.pharmacy.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Three isolated pools so one workload cannot starve another:
+ * interactive (API requests, routed to replicas for read-only transactions),
+ * background (scheduled jobs, queue sweeps and cache rebuilds, selected through
+ * {@link Workload#background}) and reporting (streamed exports and analytics).
+ * Each pool takes its Hikari settings from its own property prefix.
+ */
 @Configuration
 public class DatabaseConfig {
 
     @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource interactiveDataSource(DataSourceProperties properties) {
+        return pool("interactive", properties);
+    }
+
+    @Bean
+    @ConfigurationProperties("pharmacy.datasource.background")
+    public HikariDataSource backgroundDataSource(DataSourceProperties properties) {
+        return pool("background", properties);
+    }
+
+    /** Point pharmacy.datasource.reporting.jdbc-url at a replica to take reports off the primary. */
+    @Bean
+    @ConfigurationProperties("pharmacy.datasource.reporting")
+    public HikariDataSource reportingDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = pool("reporting", properties);
+        ds.setReadOnly(true);
+        return ds;
+    }
+
+    /**
+     * Replica pools share the primary's credentials. With no replica URLs configured every
+     * connection goes to the primary.
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("interactiveDataSource") HikariDataSource interactiveDataSource,
+                                                             @Qualifier("backgroundDataSource") HikariDataSource backgroundDataSource,
+                                                             DataSourceProperties properties,
+                                                             @Value("${pharmacy.datasource.replica-urls:}") List<String> replicaUrls,
+                                                             @Value("${pharmacy.datasource.replica-pool-size:10}") int replicaPoolSize) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(interactiveDataSource, backgroundDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource,
+                                               @Value("${pharmacy.datasource.replica-max-lag:5s}") Duration maxLag) {
+        return new ReplicaLagMonitor(replicaRoutingDataSource, maxLag);
+    }
+
+    @Bean
+    @Primary
     public JdbcTemplate jdbcTemplate(DataSource dataSource) {
         return new JdbcTemplate(dataSource);
     }
+
+    @Bean
+    @Primary
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
+    @Bean
+    public JdbcTemplate reportingJdbcTemplate(@Qualifier("reportingDataSource") DataSource reportingDataSource) {
+        return new JdbcTemplate(reportingDataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager reportingTransactionManager(@Qualifier("reportingDataSource") DataSource reportingDataSource) {
+        return new DataSourceTransactionManager(reportingDataSource);
+    }
+
+    @Bean
+    public PoolMetrics poolMetrics(List<HikariDataSource> pools, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        List<HikariDataSource> all = new ArrayList<>(pools);
+        for (DataSource replica : replicaRoutingDataSource.getReplicas()) {
+            all.add((HikariDataSource) replica);
+        }
+        return new PoolMetrics(all);
+    }
+
+    // URL and credentials come from spring.datasource; size and timeouts are bound from the bean's prefix afterwards
+    private static HikariDataSource pool(String name, DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName(name);
+        return ds;
+    }
 }
@@ -0,0 +1,55 @@
+package com.pharmacy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saturation figures for every connection pool, read from Hikari's pool MXBean.
+ * A pool with threads waiting for a connection is the workload being starved.
+ */
+public class PoolMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolMetrics.class);
+
+    public record PoolStats(String pool, int active, int idle, int total, int max, int waiting) {}
+
+    private final List<HikariDataSource> pools;
+
+    public PoolMetrics(List<HikariDataSource> pools) {
+        this.pools = List.copyOf(pools);
+    }
+
+    public List<PoolStats> snapshot() {
+        List<PoolStats> stats = new ArrayList<>(pools.size());
+        for (HikariDataSource ds : pools) {
+            HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+            if (pool == null) {
+                // not started yet: Hikari creates the pool on first getConnection()
+                stats.add(new PoolStats(ds.getPoolName(), 0, 0, 0, ds.getMaximumPoolSize(), 0));
+                continue;
+            }
+            stats.add(new PoolStats(ds.getPoolName(),
+                    pool.getActiveConnections(),
+                    pool.getIdleConnections(),
+                    pool.getTotalConnections(),
+                    ds.getMaximumPoolSize(),
+                    pool.getThreadsAwaitingConnection()));
+        }
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.datasource.pool-metrics-interval-ms:30000}")
+    public void logSaturation() {
+        for (PoolStats s : snapshot()) {
+            if (s.waiting() > 0) {
+                log.warn("Pool {} saturated: {}/{} active, {} threads waiting", s.pool(), s.active(), s.max(), s.waiting());
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pharmacy.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Periodically measures replay lag on each replica and takes a replica out of the
+ * read rotation while it is unreachable or further behind than the configured tolerance.
+ * With every replica out, reads fall back to the primary.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // zero when the replica has replayed everything it received, so an idle primary doesn't read as lag
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final ReplicaRoutingDataSource routing;
+    private final List<JdbcTemplate> probes;
+    private final double maxLagSeconds;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routing, Duration maxLag) {
+        this.routing = routing;
+        this.probes = routing.getReplicas().stream().map(JdbcTemplate::new).toList();
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        for (JdbcTemplate probe : probes) {
+            probe.setQueryTimeout(2);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.datasource.replica-check-interval-ms:5000}")
+    public void check() {
+        for (int i = 0; i < probes.size(); i++) {
+            boolean ok;
+            try {
+                Double lag = probes.get(i).queryForObject(LAG_SQL, Double.class);
+                ok = lag != null && lag <= maxLagSeconds;
+                if (!ok) {
+                    log.warn("Replica {} is {}s behind (max {}s), routing its reads to the primary", i, lag, maxLagSeconds);
+                }
+            } catch (RuntimeException e) {
+                ok = false;
+                log.warn("Replica {} health check failed, routing its reads to the primary: {}", i, e.getMessage());
+            }
+            if (ok && !routing.isHealthy(i)) {
+                log.info("Replica {} is back in the read rotation", i);
+            }
+            routing.setHealthy(i, ok);
+        }
+    }
+}
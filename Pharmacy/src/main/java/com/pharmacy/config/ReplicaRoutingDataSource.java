@@ -0,0 +1,91 @@
+package com.pharmacy.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Sends connections requested inside a read-only transaction to a healthy replica and
+ * everything else to the primary, unless {@link Workload} forces the primary or the
+ * background pool for the current thread. Must sit behind a LazyConnectionDataSourceProxy so the
+ * connection is only fetched once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+    static final String BACKGROUND = "background";
+
+    private final List<DataSource> replicas;
+    // 1 healthy, 0 not; written by ReplicaLagMonitor, read on every routed connection
+    private final AtomicIntegerArray healthy;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource background, List<DataSource> replicas) {
+        this.replicas = List.copyOf(replicas);
+        this.healthy = new AtomicIntegerArray(replicas.size());
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(BACKGROUND, background);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+            healthy.set(i, 1);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String forced = Workload.forcedRoute();
+        if (forced != null) {
+            return forced;
+        }
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            if (healthy.get(candidate) == 1) {
+                return candidate;
+            }
+        }
+        return PRIMARY;
+    }
+
+    List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    boolean isHealthy(int replica) {
+        return healthy.get(replica) == 1;
+    }
+
+    @Override
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    void setHealthy(int replica, boolean value) {
+        healthy.set(replica, value ? 1 : 0);
+    }
+}
@@ -0,0 +1,131 @@
+package com.pharmacy.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies classpath:db/migration/V{n}__{description}.sql in version order at startup and
+ * records each one in pharmacy.schema_migration with a SHA-256 checksum. Creating that table
+ * and every migration run in their own transaction under an advisory lock, so concurrent
+ * instances apply each once.
+ * A migration whose file changed after it was applied fails startup.
+ */
+@Component
+public class SchemaMigrationRunner implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrationRunner.class);
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final long LOCK_KEY = 0x70686d6d6967L;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final String location;
+
+    public SchemaMigrationRunner(@Qualifier("backgroundDataSource") DataSource dataSource,
+                                 @Value("${pharmacy.migrations.enabled:true}") boolean enabled,
+                                 @Value("${pharmacy.migrations.location:classpath:db/migration/}") String location) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.enabled = enabled;
+        this.location = location;
+    }
+
+    record Migration(int version, String description, String sql, String checksum) {}
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // under the lock too: concurrent CREATE TABLE IF NOT EXISTS can still fail on pg_type
+        tx.executeWithoutResult(status -> {
+            lock();
+            jdbc.execute("CREATE TABLE IF NOT EXISTS pharmacy.schema_migration (" +
+                    "version integer PRIMARY KEY, " +
+                    "description text NOT NULL, " +
+                    "checksum text NOT NULL, " +
+                    "applied_at timestamptz NOT NULL DEFAULT now())");
+        });
+
+        for (Migration m : load()) {
+            tx.executeWithoutResult(status -> apply(m));
+        }
+    }
+
+    private void lock() {
+        jdbc.queryForList("SELECT pg_advisory_xact_lock(?)", LOCK_KEY);
+    }
+
+    private void apply(Migration m) {
+        lock();
+        List<String> applied = jdbc.queryForList(
+                "SELECT checksum FROM pharmacy.schema_migration WHERE version = ?", String.class, m.version());
+        if (!applied.isEmpty()) {
+            if (!applied.get(0).equals(m.checksum())) {
+                throw new IllegalStateException("Migration V" + m.version() + " (" + m.description() +
+                        ") was modified after it was applied");
+            }
+            return;
+        }
+        log.info("Applying migration V{} {}", m.version(), m.description());
+        jdbc.execute(m.sql());
+        jdbc.update("INSERT INTO pharmacy.schema_migration (version, description, checksum) VALUES (?, ?, ?)",
+                m.version(), m.description(), m.checksum());
+    }
+
+    List<Migration> load() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location + "V*__*.sql");
+        List<Migration> migrations = new ArrayList<>();
+        for (Resource r : resources) {
+            Matcher match = FILE_NAME.matcher(r.getFilename() == null ? "" : r.getFilename());
+            if (!match.matches()) {
+                continue;
+            }
+            byte[] bytes;
+            try (InputStream in = r.getInputStream()) {
+                bytes = in.readAllBytes();
+            }
+            migrations.add(new Migration(Integer.parseInt(match.group(1)), match.group(2).replace('_', ' '),
+                    new String(bytes, StandardCharsets.UTF_8), sha256(bytes)));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Duplicate migration version V" + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
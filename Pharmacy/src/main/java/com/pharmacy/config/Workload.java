@@ -0,0 +1,61 @@
+package com.pharmacy.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Overrides where ReplicaRoutingDataSource sends the current thread's connections. The DAOs
+ * stay on the one primary JdbcTemplate; callers wrap their calls here instead.
+ * {@link #background} takes primary connections from the background pool, for scheduled jobs
+ * and cache rebuilds. {@link #primary} keeps read-only transactions off the replicas, for reads
+ * that must see a change just committed or notified, which a replica may not have replayed yet.
+ * Only connections fetched inside the call are affected, including the one of a transaction
+ * begun inside it.
+ */
+public final class Workload {
+
+    private static final ThreadLocal<String> ROUTE = new ThreadLocal<>();
+
+    private Workload() {}
+
+    public static <T> T background(Supplier<T> work) {
+        return route(ReplicaRoutingDataSource.BACKGROUND, work);
+    }
+
+    public static void background(Runnable work) {
+        background(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /** Background work already reads the primary and stays on its pool. */
+    public static <T> T primary(Supplier<T> work) {
+        return ROUTE.get() != null ? work.get() : route(ReplicaRoutingDataSource.PRIMARY, work);
+    }
+
+    public static void primary(Runnable work) {
+        primary(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /** The lookup key forced on this thread, or null to route normally. */
+    static String forcedRoute() {
+        return ROUTE.get();
+    }
+
+    private static <T> T route(String key, Supplier<T> work) {
+        String outer = ROUTE.get();
+        ROUTE.set(key);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                ROUTE.remove();
+            } else {
+                ROUTE.set(outer);
+            }
+        }
+    }
+}
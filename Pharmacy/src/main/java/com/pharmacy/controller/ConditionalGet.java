@@ -0,0 +1,61 @@
+package com.pharmacy.controller;
+
+import com.pharmacy.dao.DataVersion;
+import com.pharmacy.dao.DataVersionDao;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET support: answers If-None-Match / If-Modified-Since with 304 and no body,
+ * before the body supplier runs, so an unchanged resource costs neither its query nor its
+ * serialization. Responses are marked no-cache so clients always revalidate.
+ */
+@Component
+public class ConditionalGet {
+
+    private final DataVersionDao versions;
+    private final TransactionTemplate readOnly;
+
+    public ConditionalGet(DataVersionDao versions, PlatformTransactionManager transactionManager) {
+        this.versions = versions;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /** Validated by a precomputed strong ETag, e.g. a content hash. */
+    public <T> ResponseEntity<T> ok(WebRequest request, String etag, Supplier<? extends T> body) {
+        return respond(request.checkNotModified(etag), etag, -1, body);
+    }
+
+    /** Validated by a table version the caller already read, e.g. the one a cached snapshot was loaded at. */
+    public <T> ResponseEntity<T> ok(WebRequest request, DataVersion version, Supplier<? extends T> body) {
+        long lastModified = version.modifiedAt().toEpochMilli();
+        return respond(request.checkNotModified(version.etag(), lastModified), version.etag(), lastModified, body);
+    }
+
+    /**
+     * Validated by the current version of {@code table}. The version and the body are read in
+     * one read-only transaction, on the same connection, so the tag is never newer than the data.
+     */
+    public <T> ResponseEntity<T> forTable(WebRequest request, String table, Supplier<? extends T> body) {
+        return readOnly.execute(status -> ok(request, versions.get(table), body));
+    }
+
+    private static <T> ResponseEntity<T> respond(boolean notModified, String etag, long lastModified, Supplier<? extends T> body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache());
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return notModified ? response.build() : response.body(body.get());
+    }
+}
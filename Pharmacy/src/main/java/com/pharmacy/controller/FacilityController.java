@@ -0,0 +1,82 @@
+package com.pharmacy.controller;
+
+import com.pharmacy.dao.FacilityDao;
+import com.pharmacy.exception.DaoException;
+import com.pharmacy.model.Facility;
+import com.pharmacy.service.FacilityNearCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/facilities")
+@CrossOrigin
+public class FacilityController {
+
+    private static final String TABLE = "facility";
+
+    private final FacilityDao dao;
+    private final FacilityNearCache cache;
+    private final ConditionalGet conditionalGet;
+
+    public FacilityController(FacilityDao dao, FacilityNearCache cache, ConditionalGet conditionalGet) {
+        this.dao = dao;
+        this.cache = cache;
+        this.conditionalGet = conditionalGet;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<Facility>> listAll(WebRequest request) {
+        try {
+            return conditionalGet.forTable(request, TABLE, dao::listAll);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to list facilities", e);
+        }
+    }
+
+    @GetMapping("/{facilityId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<Facility> getById(@PathVariable("facilityId") long facilityId, WebRequest request) {
+        try {
+            return conditionalGet.forTable(request, TABLE, () -> dao.getById(facilityId));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to get facility by ID", e);
+        }
+    }
+
+    /** Facilities for a page of queue rows, in request order; null for unknown ids. */
+    @GetMapping("/resolve")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<Facility> resolve(@RequestParam long[] ids) {
+        try {
+            return Arrays.asList(cache.resolveFacilities(ids));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to resolve facilities", e);
+        }
+    }
+
+    /** Facility ids each prescriber is affiliated with, keyed by prescriber id. */
+    @GetMapping("/affiliations")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public Map<Long, long[]> affiliations(@RequestParam long[] prescriberIds) {
+        try {
+            long[][] facilityIds = cache.resolveAffiliations(prescriberIds);
+            Map<Long, long[]> byPrescriber = new LinkedHashMap<>(prescriberIds.length * 2);
+            for (int i = 0; i < prescriberIds.length; i++) {
+                byPrescriber.put(prescriberIds[i], facilityIds[i]);
+            }
+            return byPrescriber;
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to resolve prescriber affiliations", e);
+        }
+    }
+}
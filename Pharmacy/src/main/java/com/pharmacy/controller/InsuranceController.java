@@ -1,13 +1,16 @@
 package com.pharmacy.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pharmacy.dao.InsuranceDao;
 import com.pharmacy.exception.DaoException;
 import com.pharmacy.model.InsuranceInfo;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,9 +20,11 @@ import java.util.List;
 public class InsuranceController {
 
     private final InsuranceDao dao;
+    private final ObjectMapper objectMapper;
 
-    public InsuranceController(InsuranceDao dao) {
+    public InsuranceController(InsuranceDao dao, ObjectMapper objectMapper) {
         this.dao = dao;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
@@ -32,6 +37,12 @@ public class InsuranceController {
         }
     }
 
+    @GetMapping("/stream")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return StreamingJson.<InsuranceInfo>array(objectMapper, dao::streamAll);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
     public InsuranceInfo getById(@PathVariable("id") long id) {
@@ -1,13 +1,19 @@
 package com.pharmacy.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pharmacy.dao.MedicationDao;
 import com.pharmacy.exception.DaoException;
+import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.Medication;
+import com.pharmacy.service.MedicationCatalog;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,36 +23,74 @@ import java.util.List;
 public class MedicationController {
 
     private final MedicationDao dao;
+    private final MedicationCatalog catalog;
+    private final ConditionalGet conditionalGet;
+    private final ObjectMapper objectMapper;
 
-    public MedicationController(MedicationDao dao) {
+    public MedicationController(MedicationDao dao, MedicationCatalog catalog, ConditionalGet conditionalGet, ObjectMapper objectMapper) {
         this.dao = dao;
+        this.catalog = catalog;
+        this.conditionalGet = conditionalGet;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
-    public Medication getById(@PathVariable("id") long id) {
+    public ResponseEntity<Medication> getById(@PathVariable("id") long id, WebRequest request) {
         try{
-            return dao.getById(id);
+            MedicationCatalog.Snapshot s = catalog.current();
+            Medication med = catalog.findById(s, id).orElseThrow(() -> new NotFoundException("Medication not found"));
+            return conditionalGet.ok(request, s.etag(), () -> med);
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to get medication by ID", e);
         }
     }
 
+    @GetMapping("/ndc/{ndc}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<Medication> getByNdc(@PathVariable("ndc") String ndc, WebRequest request) {
+        try{
+            MedicationCatalog.Snapshot s = catalog.current();
+            Medication med = catalog.findByNdc(s, ndc).orElseThrow(() -> new NotFoundException("Medication not found"));
+            return conditionalGet.ok(request, s.etag(), () -> med);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to get medication by NDC", e);
+        }
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<List<Medication>> searchByName(@RequestParam("q") String q, WebRequest request) {
+        try{
+            MedicationCatalog.Snapshot s = catalog.current();
+            return conditionalGet.ok(request, s.etag(), () -> catalog.searchByName(s, q));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to search medications", e);
+        }
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
-    public List<Medication> listAll() {
+    public ResponseEntity<List<Medication>> listAll(WebRequest request) {
         try{
-            return dao.listAll();
+            MedicationCatalog.Snapshot s = catalog.current();
+            return conditionalGet.ok(request, s.etag(), s::byGenericName);
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to list medications", e);
         }
     }
 
+    @GetMapping("/stream")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return StreamingJson.<Medication>array(objectMapper, dao::streamAll);
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
     public Medication create(@RequestBody @Valid Medication dto) {
         try{
-            return dao.create(dto);
+            return catalog.create(dto);
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to create medication", e);
         }
@@ -57,7 +101,7 @@ public class MedicationController {
     public Medication update(@PathVariable("id") long id, @RequestBody @Valid Medication dto) {
         try{
             dto.setMedicationId(id);
-            return dao.update(dto);
+            return catalog.update(dto);
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to update medication", e);
         }
@@ -67,7 +111,7 @@ public class MedicationController {
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
     public boolean delete(@PathVariable("id") long id) {
         try{
-            return dao.deleteById(id);
+            return catalog.delete(id);
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to delete medication", e);
         }
@@ -1,13 +1,19 @@
 package com.pharmacy.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacy.dao.KeysetCursor;
 import com.pharmacy.dao.PatientDao;
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.exception.DaoException;
 import com.pharmacy.model.Patient;
+import com.pharmacy.service.PatientPhoneIndex;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,9 +23,13 @@ import java.util.List;
 public class PatientController {
 
     private final PatientDao patientDao;
+    private final PatientPhoneIndex phoneIndex;
+    private final ObjectMapper objectMapper;
 
-    public PatientController(PatientDao patientDao) {
+    public PatientController(PatientDao patientDao, PatientPhoneIndex phoneIndex, ObjectMapper objectMapper) {
         this.patientDao = patientDao;
+        this.phoneIndex = phoneIndex;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
@@ -33,11 +43,28 @@ public class PatientController {
         }
     }
 
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PageDto<Patient> listPage(@RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) Integer size) {
+        try {
+            return patientDao.listPage(cursor, KeysetCursor.pageSize(size));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to list patients", e);
+        }
+    }
+
+    @GetMapping("/stream")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return StreamingJson.<Patient>array(objectMapper, patientDao::streamAll);
+    }
+
     @GetMapping("/{patientId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public Patient getPatientById(@PathVariable long patientId) {
+    public ResponseEntity<Patient> getPatientById(@PathVariable long patientId) {
         try {
-            return patientDao.getById(patientId);
+            return ResponseEntity.of(patientDao.findById(patientId));
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to get patient by ID", e);
         }
@@ -47,7 +74,7 @@ public class PatientController {
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public Patient createPatient(@Valid @RequestBody Patient patient) {
         try {
-            return patientDao.create(patient);
+            return phoneIndex.create(patient);
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to create patient", e);
         }
@@ -57,7 +84,8 @@ public class PatientController {
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public Patient updatePatient( @PathVariable long patientId, @Valid @RequestBody Patient patient) {
         try {
-            return patientDao.update(patientId, patient);
+            patient.setPatientId(patientId);
+            return phoneIndex.update(patient);
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to update patient", e);
         }
@@ -67,8 +95,7 @@ public class PatientController {
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public boolean deletePatient(@PathVariable long patientId) {
         try {
-            patientDao.deletePatient(patientId);
-            return true;
+            return phoneIndex.delete(patientId);
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to delete patient", e);
         }
@@ -85,15 +112,30 @@ public class PatientController {
         }
     }
 
+    @GetMapping("/search/page")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PageDto<Patient> searchPatientsPage(@RequestParam String query,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size) {
+        try {
+            return patientDao.searchByNamePage(query, cursor, KeysetCursor.pageSize(size));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to search patients", e);
+        }
+    }
+
     @PostMapping("/lookup")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public Patient lookupPatientByContact(
+    public List<Patient> lookupPatientByContact(
             @RequestParam(required = false) String firstName,
             @RequestParam(required = false) String lastName,
             @RequestParam(required = false) String phone) {
         try {
-            Patient patient = patientDao.findByPhoneDigits(phone);
-            return patient;
+            // everyone on the number, optionally narrowed to one family member by name
+            return phoneIndex.findByPhone(phone).stream()
+                    .filter(p -> firstName == null || firstName.equalsIgnoreCase(p.getContact().getFirstName()))
+                    .filter(p -> lastName == null || lastName.equalsIgnoreCase(p.getContact().getLastName()))
+                    .toList();
         } catch (DaoException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to lookup patient by contact", e);
         }
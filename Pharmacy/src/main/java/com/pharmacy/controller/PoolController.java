@@ -0,0 +1,28 @@
+package com.pharmacy.controller;
+
+import com.pharmacy.config.PoolMetrics;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/pools")
+@CrossOrigin
+public class PoolController {
+
+    private final PoolMetrics poolMetrics;
+
+    public PoolController(PoolMetrics poolMetrics) {
+        this.poolMetrics = poolMetrics;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<PoolMetrics.PoolStats> list() {
+        return poolMetrics.snapshot();
+    }
+}
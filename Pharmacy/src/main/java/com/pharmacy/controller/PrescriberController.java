@@ -1,31 +1,68 @@
 package com.pharmacy.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacy.dao.KeysetCursor;
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.dto.PrescriberDto;
 import com.pharmacy.model.Prescriber;
 import com.pharmacy.dao.PrescriberDao;
 import com.pharmacy.exception.DaoException;
+import com.pharmacy.exception.NotFoundException;
+import com.pharmacy.service.PrescriberNpiCache;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/prescribers")
 @CrossOrigin
 public class PrescriberController {
 
+    private static final String TABLE = "prescriber";
+
     private final PrescriberDao dao;
+    private final PrescriberNpiCache npiCache;
+    private final ConditionalGet conditionalGet;
+    private final ObjectMapper objectMapper;
 
-    public PrescriberController(PrescriberDao dao) {
+    public PrescriberController(PrescriberDao dao, PrescriberNpiCache npiCache, ConditionalGet conditionalGet, ObjectMapper objectMapper) {
         this.dao = dao;
+        this.npiCache = npiCache;
+        this.conditionalGet = conditionalGet;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PageDto<Prescriber> listPage(@RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer size) {
+        try {
+            return dao.listPage(cursor, KeysetCursor.pageSize(size));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to list prescribers", e);
+        }
+    }
+
+    @GetMapping("/stream")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return StreamingJson.<Prescriber>array(objectMapper, dao::streamAll);
     }
 
     @GetMapping("/{prescriberId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public Prescriber getById(@PathVariable("prescriberId") long prescriberId) {
+    public ResponseEntity<Prescriber> getById(@PathVariable("prescriberId") long prescriberId, WebRequest request) {
         try {
-            return dao.getById(prescriberId);
+            return conditionalGet.forTable(request, TABLE, () -> dao.findById(prescriberId)
+                    .orElseThrow(() -> new NotFoundException("Prescriber not found")));
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to get prescriber by ID", e);
         }
@@ -33,9 +70,9 @@ public class PrescriberController {
 
     @GetMapping("/by-npi/{npi}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public Prescriber getByNpi(@PathVariable String npi) {
+    public ResponseEntity<Prescriber> getByNpi(@PathVariable String npi) {
         try {
-            return dao.getByNpi(npi);
+            return ResponseEntity.of(npiCache.findByNpi(npi));
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to get prescriber by NPI", e);
         }
@@ -43,19 +80,31 @@ public class PrescriberController {
 
     @GetMapping("/search")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public List<Prescriber> searchByName(@RequestParam("q") String namePart) {
+    public ResponseEntity<List<Prescriber>> searchByName(@RequestParam("q") String namePart, WebRequest request) {
         try {
-            return dao.searchByName(namePart);
+            return conditionalGet.forTable(request, TABLE, () -> dao.searchByName(namePart));
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to search prescribers by name", e);
         }
     }
 
+    @GetMapping("/search/page")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PageDto<Prescriber> searchByNamePage(@RequestParam("q") String namePart,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size) {
+        try {
+            return dao.searchByNamePage(namePart, cursor, KeysetCursor.pageSize(size));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to search prescribers by name", e);
+        }
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public Prescriber create(@RequestBody @Valid PrescriberDto dto) {
         try {
-            Prescriber saved = dao.create(dto);
+            Prescriber saved = npiCache.create(dto);
             return saved;
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to create prescriber", e);
@@ -67,10 +116,16 @@ public class PrescriberController {
     public Prescriber update(@PathVariable("prescriberId") long prescriberId, @RequestBody @Valid PrescriberDto dto) {
         try {
             dto.setPrescriberId(prescriberId);
-            Prescriber updated = dao.update(dto);
+            Prescriber updated = npiCache.update(dto);
             return updated;
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to update prescriber", e);
         }
     }
+
+    @GetMapping("/npi-cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Long> getNpiCacheStats() {
+        return npiCache.stats();
+    }
 }
@@ -1,11 +1,31 @@
 package com.pharmacy.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacy.model.Fulfillment;
 import com.pharmacy.model.Prescription;
+import com.pharmacy.model.PrescriptionItem;
+import com.pharmacy.model.WorkflowEvent;
 import com.pharmacy.model.enums.RxStatus;
+import com.pharmacy.model.enums.WorkflowStatus;
+import com.pharmacy.dao.FulfillmentDao;
+import com.pharmacy.dao.KeysetCursor;
+import com.pharmacy.dao.PrescriptionAggregateDao;
 import com.pharmacy.dao.PrescriptionDao;
+import com.pharmacy.dao.PrescriptionItemDao;
+import com.pharmacy.dao.TransitionResult;
+import com.pharmacy.dao.WorkflowEventDao;
+import com.pharmacy.dto.PageDto;
+import com.pharmacy.dto.PrescriptionAggregateDto;
+import com.pharmacy.exception.BadRequestException;
 import com.pharmacy.exception.DaoException;
+import com.pharmacy.service.WorkflowEngine;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -14,22 +34,80 @@ import java.util.List;
 @CrossOrigin
 public class PrescriptionController {
 
+    private static final int MAX_AGGREGATE_IDS = 200;
+    // rows per bulk insert; each request is one transaction
+    private static final int MAX_BULK_ROWS = 500;
+
     private final PrescriptionDao dao;
+    private final PrescriptionItemDao itemDao;
+    private final FulfillmentDao fulfillmentDao;
+    private final PrescriptionAggregateDao aggregateDao;
+    private final WorkflowEngine workflow;
+    private final WorkflowEventDao workflowEvents;
+    private final ObjectMapper objectMapper;
 
-    public PrescriptionController(PrescriptionDao dao) {
+    public PrescriptionController(PrescriptionDao dao, PrescriptionItemDao itemDao, FulfillmentDao fulfillmentDao,
+                                  PrescriptionAggregateDao aggregateDao, WorkflowEngine workflow,
+                                  WorkflowEventDao workflowEvents, ObjectMapper objectMapper) {
         this.dao = dao;
+        this.itemDao = itemDao;
+        this.fulfillmentDao = fulfillmentDao;
+        this.aggregateDao = aggregateDao;
+        this.workflow = workflow;
+        this.workflowEvents = workflowEvents;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/stream")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return StreamingJson.<Prescription>array(objectMapper, dao::streamAll);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public Prescription getById(@PathVariable("id") long id) {
+    public ResponseEntity<Prescription> getById(@PathVariable("id") long id) {
         try {
-            return dao.getById(id);
+            return ResponseEntity.of(dao.findById(id));
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to get prescription by ID", e);
         }
     }
 
+    @GetMapping("/{id}/full")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PrescriptionAggregateDto getFull(@PathVariable("id") long id) {
+        try {
+            return aggregateDao.getById(id);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to get prescription", e);
+        }
+    }
+
+    /** Every stage and status change of the prescription, oldest first; kept after deletion. */
+    @GetMapping("/{id}/workflow-history")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<WorkflowEvent> workflowHistory(@PathVariable("id") long id) {
+        try {
+            return workflowEvents.listByPrescription(id);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to get workflow history", e);
+        }
+    }
+
+    @GetMapping("/full")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<PrescriptionAggregateDto> listFull(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_AGGREGATE_IDS) {
+            throw new BadRequestException("At most " + MAX_AGGREGATE_IDS + " prescription ids per request");
+        }
+        try {
+            return aggregateDao.listByIds(ids);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to list prescriptions", e);
+        }
+    }
+
     @GetMapping("/by-patient/{patientId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public List<Prescription> listByPatient(@PathVariable long patientId) {
@@ -50,6 +128,30 @@ public class PrescriptionController {
         }
     }
 
+    @GetMapping("/by-patient/{patientId}/page")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PageDto<Prescription> listByPatientPage(@PathVariable long patientId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer size) {
+        try {
+            return dao.listByPatientPage(patientId, cursor, KeysetCursor.pageSize(size));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to list prescriptions by patient", e);
+        }
+    }
+
+    @GetMapping("/by-prescriber/{prescriberId}/page")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PageDto<Prescription> listByPrescriberPage(@PathVariable long prescriberId,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer size) {
+        try {
+            return dao.listByPrescriberPage(prescriberId, cursor, KeysetCursor.pageSize(size));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to list prescriptions by prescriber", e);
+        }
+    }
+
     @GetMapping("/by-patient/{patientId}/status/{status}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public List<Prescription> listByPatientAndStatus(@PathVariable long patientId, @PathVariable RxStatus status) {
@@ -70,6 +172,32 @@ public class PrescriptionController {
         }
     }
 
+    @PostMapping("/{id}/items/bulk")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<PrescriptionItem> createItems(@PathVariable("id") long id,
+                                              @Valid @RequestBody List<@Valid PrescriptionItem> items) {
+        checkBulkSize(items);
+        items.forEach(item -> item.setPrescriptionId(id));
+        try {
+            return itemDao.createAll(items);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to create prescription items", e);
+        }
+    }
+
+    @PostMapping("/{id}/fulfillments/bulk")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<Fulfillment> createFulfillments(@PathVariable("id") long id,
+                                                @Valid @RequestBody List<@Valid Fulfillment> fulfillments) {
+        checkBulkSize(fulfillments);
+        fulfillments.forEach(f -> f.setPrescriptionId(id));
+        try {
+            return fulfillmentDao.createAll(fulfillments);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to create fulfillments", e);
+        }
+    }
+
     @PatchMapping("/{id}/status/{status}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public Prescription updateStatus(@PathVariable("id") long id, @PathVariable RxStatus status) {
@@ -80,6 +208,17 @@ public class PrescriptionController {
         }
     }
 
+    /** Moves every listed prescription to {@code status}; one result per id, in request order. */
+    @PostMapping("/workflow-status/{status}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<TransitionResult> transitionAll(@PathVariable WorkflowStatus status, @RequestBody long[] ids) {
+        try {
+            return workflow.transition(ids, status);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to update workflow status", e);
+        }
+    }
+
     @PatchMapping("/{id}/prescriber/{prescriberId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public Prescription updatePrescriber(@PathVariable("id") long id, @PathVariable long prescriberId) {
@@ -99,4 +238,10 @@ public class PrescriptionController {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to delete prescription", e);
         }
     }
+
+    private static void checkBulkSize(List<?> rows) {
+        if (rows.size() > MAX_BULK_ROWS) {
+            throw new BadRequestException("At most " + MAX_BULK_ROWS + " rows per bulk request");
+        }
+    }
 }
@@ -1,31 +1,65 @@
 package com.pharmacy.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pharmacy.model.Product;
 import com.pharmacy.model.enums.ProductStatus;
+import com.pharmacy.dao.KeysetCursor;
 import com.pharmacy.dao.ProductDao;
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.exception.DaoException;
+import com.pharmacy.exception.NotFoundException;
+import com.pharmacy.service.ProductCatalogCache;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 @RestController
 @RequestMapping("/api/products")
 @CrossOrigin
 public class ProductController {
 
     private final ProductDao dao;
+    private final ProductCatalogCache catalog;
+    private final ConditionalGet conditionalGet;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductDao dao) {
+    public ProductController(ProductDao dao, ProductCatalogCache catalog, ConditionalGet conditionalGet, ObjectMapper objectMapper) {
         this.dao = dao;
+        this.catalog = catalog;
+        this.conditionalGet = conditionalGet;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PageDto<Product> getProductsPage(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size) {
+        try {
+            return dao.listPage(cursor, KeysetCursor.pageSize(size));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to get products page", e);
+        }
+    }
+
+    @GetMapping("/stream")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return StreamingJson.<Product>array(objectMapper, dao::streamAll);
     }
 
     @GetMapping("/{productId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public Product getProductById(@PathVariable long productId) {
+    public ResponseEntity<Product> getProductById(@PathVariable long productId, WebRequest request) {
         try {
-            return dao.getById(productId);
+            return conditionalGet.ok(request, catalog.version(), () -> catalog.findById(productId)
+                    .orElseThrow(() -> new NotFoundException("Product not found")));
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to get product by ID", e);
         }
@@ -33,9 +67,9 @@ public class ProductController {
 
     @GetMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public List<Product> getAllProducts() {
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest request) {
         try {
-            return dao.listAll();
+            return conditionalGet.ok(request, catalog.version(), catalog::listAll);
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to get all products", e);
         }
@@ -45,27 +79,49 @@ public class ProductController {
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public Product createProduct(@Valid @RequestBody Product product) {
         try {
-            return dao.create(product);
+            return catalog.create(product);
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to create product", e);
         }
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<Product> createProducts(@Valid @RequestBody List<@Valid Product> products) {
+        try {
+            return catalog.createAll(products);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to create products", e);
+        }
+    }
+
     @GetMapping("/search/name")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public List<Product> searchProductsByName(@RequestParam String name) {
+    public ResponseEntity<List<Product>> searchProductsByName(@RequestParam String name, WebRequest request) {
         try {
-            return dao.searchByName(name);
+            return conditionalGet.ok(request, catalog.version(), () -> catalog.findByName(name));
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to search products by name", e);
         }
     }
 
+    @GetMapping("/search/name/page")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PageDto<Product> searchProductsByNamePage(@RequestParam String name,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer size) {
+        try {
+            return dao.findByNamePage(name, cursor, KeysetCursor.pageSize(size));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to search products by name", e);
+        }
+    }
+
     @GetMapping("/search/ndc")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public List<Product> searchProductsByNdc(@RequestParam String ndc) {
+    public ResponseEntity<List<Product>> searchProductsByNdc(@RequestParam String ndc, WebRequest request) {
         try {
-            return dao.findByNdc(ndc);
+            return conditionalGet.ok(request, catalog.version(), () -> catalog.findByNdc(ndc));
         } catch (DaoException e) {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to search products by NDC", e);
         }
@@ -100,4 +156,10 @@ public class ProductController {
             throw new DaoException(HttpStatus.FORBIDDEN, "Failed to update product status", e);
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Long> getCacheStats() {
+        return catalog.stats();
+    }
+}
@@ -0,0 +1,47 @@
+package com.pharmacy.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes rows to the response as a JSON array while the DAO is still reading them,
+ * so only the row currently being serialized is held in memory.
+ * <p>
+ * The query runs after the handler returned, so its failures cannot be mapped to a status
+ * here. A failure before anything was flushed still becomes an error response; after that
+ * the exception propagates with the array left open and nothing flushed or closed, and the
+ * container aborts the connection, so a client never mistakes a cut-off list for a whole one.
+ */
+public final class StreamingJson {
+
+    private StreamingJson() {}
+
+    public static <T> ResponseEntity<StreamingResponseBody> array(ObjectMapper mapper, Consumer<Consumer<? super T>> source) {
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            JsonGenerator gen = mapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            gen.writeStartArray();
+            source.accept(row -> {
+                try {
+                    writer.writeValue(gen, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            gen.writeEndArray();
+            gen.close();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -0,0 +1,149 @@
+package com.pharmacy.controller;
+
+import com.pharmacy.dao.WorkflowEventDao;
+import com.pharmacy.dao.WorkflowStatusCount;
+import com.pharmacy.exception.BadRequestException;
+import com.pharmacy.exception.DaoException;
+import com.pharmacy.exception.ServiceException;
+import com.pharmacy.model.Prescription;
+import com.pharmacy.model.enums.WorkflowStage;
+import com.pharmacy.security.AuthenticatedUser;
+import com.pharmacy.service.WorkQueueLeases;
+import com.pharmacy.service.WorkQueueScheduler;
+import com.pharmacy.service.WorkflowStream;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/workflow")
+@CrossOrigin
+public class WorkQueueController {
+
+    private static final int MAX_NEXT = 100;
+
+    private final WorkQueueLeases leases;
+    private final WorkQueueScheduler scheduler;
+    private final WorkflowEventDao events;
+    private final WorkflowStream stream;
+
+    public WorkQueueController(WorkQueueLeases leases, WorkQueueScheduler scheduler,
+                               WorkflowEventDao events, WorkflowStream stream) {
+        this.leases = leases;
+        this.scheduler = scheduler;
+        this.events = events;
+        this.stream = stream;
+    }
+
+    /**
+     * Server-sent workflow changes and queue depths, optionally only for some facilities and
+     * stages; replaces polling the queues.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public SseEmitter stream(@RequestParam(name = "facility", required = false) long[] facilityIds,
+                             @RequestParam(name = "stage", required = false) Set<WorkflowStage> stages) {
+        try {
+            return stream.open(facilityIds, stages);
+        } catch (ServiceException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to open workflow stream", e);
+        }
+    }
+
+    /** Prescriptions per stage and status, for the dashboard. */
+    @GetMapping("/counts")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<WorkflowStatusCount> counts() {
+        try {
+            return events.statusCounts();
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to count prescriptions", e);
+        }
+    }
+
+    /**
+     * The best queued prescriptions of a stage, most urgent first, for one facility or all;
+     * a preview of what to work on next, without leasing anything.
+     */
+    @GetMapping("/queues/{stage}/next")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<WorkQueueScheduler.WorkItem> next(@PathVariable WorkflowStage stage,
+                                                  @RequestParam(name = "facility", required = false) Long facilityId,
+                                                  @RequestParam(defaultValue = "1") int count) {
+        if (count < 1 || count > MAX_NEXT) {
+            throw new BadRequestException("Ask for between 1 and " + MAX_NEXT + " prescriptions");
+        }
+        try {
+            return scheduler.next(stage, facilityId, count);
+        } catch (ServiceException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to load work queue", e);
+        }
+    }
+
+    /** Unclaimed prescriptions waiting in a stage's queue, per facility id; empty queues are left out. */
+    @GetMapping("/queues/{stage}/depths")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public Map<Long, Integer> depths(@PathVariable WorkflowStage stage) {
+        try {
+            return scheduler.depths(stage);
+        } catch (ServiceException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to load work queue depths", e);
+        }
+    }
+
+    /** Leases the next prescriptions of a stage to the caller. */
+    @PostMapping("/queues/{stage}/claim")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<Prescription> claim(@PathVariable WorkflowStage stage,
+                                    @RequestParam(defaultValue = "1") int count,
+                                    @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            return leases.claim(stage, userId(user), count);
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to claim prescriptions", e);
+        }
+    }
+
+    @PostMapping("/leases/{prescriptionId}/renew")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public void renew(@PathVariable long prescriptionId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean renewed;
+        try {
+            renewed = leases.renew(prescriptionId, userId(user));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to renew lease", e);
+        }
+        if (!renewed) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Prescription is not leased to you");
+        }
+    }
+
+    @DeleteMapping("/leases/{prescriptionId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public boolean release(@PathVariable long prescriptionId, @AuthenticationPrincipal AuthenticatedUser user) {
+        try {
+            return leases.release(prescriptionId, userId(user));
+        } catch (DaoException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Failed to release lease", e);
+        }
+    }
+
+    // prescription.assigned_to_user_id holds app_user ids as text
+    private static String userId(AuthenticatedUser user) {
+        return Long.toString(user.getUserId());
+    }
+}
@@ -0,0 +1,90 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.exception.NotFoundException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Small JDBC helpers shared by the Jdbc*Dao classes.
+ */
+final class DaoSupport {
+
+    /** Rows sent per JDBC batch; the driver rewrites each batch into multi-row INSERTs. */
+    static final int BATCH_SIZE = 500;
+
+    private DaoSupport() {}
+
+    @FunctionalInterface
+    interface ParameterSetter<T> {
+        void setValues(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    /**
+     * Maps the first row of the result, if any. A miss is an empty Optional rather than an
+     * exception, so lookups that often miss stay cheap.
+     */
+    static <T> Optional<T> findOne(JdbcTemplate jdbc, String sql, RowMapper<T> mapper, Object... args) {
+        return jdbc.query(sql, rs -> rs.next() ? Optional.ofNullable(mapper.mapRow(rs, 0)) : Optional.<T>empty(), args);
+    }
+
+    /**
+     * Runs an UPDATE ... RETURNING (or DELETE ... RETURNING) and maps the returned row, so a
+     * write that hands back the new state costs one round trip instead of update-then-getById.
+     * Throws {@link NotFoundException} when no row matched.
+     */
+    static <T> T updateReturning(JdbcTemplate jdbc, String sql, RowMapper<T> mapper, String notFoundMessage, Object... args) {
+        return findOne(jdbc, sql, mapper, args).orElseThrow(() -> new NotFoundException(notFoundMessage));
+    }
+
+    /**
+     * Runs an INSERT ... RETURNING and maps the inserted row, including columns filled in by
+     * database defaults.
+     */
+    static <T> T insertReturning(JdbcTemplate jdbc, String sql, RowMapper<T> mapper, Object... args) {
+        return jdbc.queryForObject(sql, mapper, args);
+    }
+
+    /**
+     * Inserts all rows through JDBC batches of {@link #BATCH_SIZE} and returns the generated
+     * ids in the same order as {@code rows}. {@code sql} must be a plain INSERT without a
+     * RETURNING clause; the driver appends one for {@code idColumn}.
+     * Callers should run this inside a transaction so a failing chunk rolls back the earlier ones.
+     */
+    static <T> long[] batchInsert(JdbcTemplate jdbc, String sql, String idColumn,
+                                  List<? extends T> rows, ParameterSetter<? super T> setter) {
+        long[] ids = new long[rows.size()];
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<? extends T> chunk = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+            GeneratedKeyHolder keys = new GeneratedKeyHolder();
+            jdbc.batchUpdate(conn -> conn.prepareStatement(sql, new String[]{idColumn}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setter.setValues(ps, chunk.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keys);
+
+            List<Map<String, Object>> keyList = keys.getKeyList();
+            if (keyList.size() != chunk.size()) {
+                throw new IllegalStateException("Expected " + chunk.size() + " generated keys but got " + keyList.size());
+            }
+            for (int i = 0; i < keyList.size(); i++) {
+                ids[from + i] = ((Number) keyList.get(i).get(idColumn)).longValue();
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pharmacy.dao;
+
+import java.time.Instant;
+
+/**
+ * Change counter of one table from pharmacy.data_version, bumped by a trigger on every
+ * write statement. Used as the validator for conditional GETs on that table's data.
+ */
+public record DataVersion(String table, long version, Instant modifiedAt) {
+
+    /** Strong ETag; the timestamp keeps tags distinct if the counter is ever reset. */
+    public String etag() {
+        return "\"" + table + "-" + version + "-" + Long.toHexString(modifiedAt.toEpochMilli()) + "\"";
+    }
+}
@@ -0,0 +1,7 @@
+package com.pharmacy.dao;
+
+public interface DataVersionDao {
+
+    /** Current version of the table; a table with no row yet reports version 0. */
+    DataVersion get(String table);
+}
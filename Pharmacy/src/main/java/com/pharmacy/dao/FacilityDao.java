@@ -3,6 +3,7 @@ package com.pharmacy.dao;
 import com.pharmacy.model.Facility;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FacilityDao {
 
@@ -10,9 +11,19 @@ public interface FacilityDao {
 
     List<Facility> listAll();
 
+    void streamAll(Consumer<? super Facility> visitor);
+
     Facility create(Facility facility);
 
     Facility update(Facility facility);
 
     boolean deleteById(long facilityId);
+
+    /** Visits every prescriber_facility row, ordered by prescriber then facility. */
+    void streamAffiliations(AffiliationVisitor visitor);
+
+    @FunctionalInterface
+    interface AffiliationVisitor {
+        void visit(long prescriberId, long facilityId);
+    }
 }
@@ -2,12 +2,15 @@ package com.pharmacy.dao;
 
 import com.pharmacy.model.Fulfillment;
 import java.util.List;
+import java.util.Optional;
 
 public interface FulfillmentDao {
     Fulfillment getById(long fulfillmentId);
+    Optional<Fulfillment> findById(long fulfillmentId);
     List<Fulfillment> getByPrescriptionId(long prescriptionId);
     List<Fulfillment> getByProductId(long productId);
     Fulfillment create(Fulfillment fulfillment);
+    List<Fulfillment> createAll(List<Fulfillment> fulfillments);
     Fulfillment update(Fulfillment fulfillment);
     boolean delete(long fulfillmentId);
 }
@@ -3,11 +3,14 @@ package com.pharmacy.dao;
 import com.pharmacy.model.InsuranceInfo;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface InsuranceDao {
 
     List<InsuranceInfo> listAll();
 
+    void streamAll(Consumer<? super InsuranceInfo> visitor);
+
     InsuranceInfo getById(long insuranceId);
 
     List<InsuranceInfo> listByPatient(long patientId);
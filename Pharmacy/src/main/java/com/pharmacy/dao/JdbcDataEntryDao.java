@@ -6,10 +6,10 @@ import com.pharmacy.exception.DaoException;
 import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.DataEntry;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
 @Repository
@@ -21,7 +21,7 @@ public class JdbcDataEntryDao implements DataEntryDao {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
-    private static DataEntry mapRow(SqlRowSet rs) {
+    private static DataEntry mapRow(ResultSet rs, int rowNum) throws SQLException {
         String json = rs.getString("payload");
         try {
             DataEntry d = MAPPER.readValue(json, DataEntry.class);
@@ -43,23 +43,16 @@ public class JdbcDataEntryDao implements DataEntryDao {
     public DataEntry getById(long entryId) {
         String sql = "SELECT entry_id, entity_pk, payload::text AS payload " +
                         "FROM pharmacy.data_entry WHERE entry_id = ?";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, entryId);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("Data entry not found");
+        return jdbc.query(sql, JdbcDataEntryDao::mapRow, entryId).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Data entry not found"));
     }
 
     @Override
     public List<DataEntry> listQueuePage() {
         String sql = "SELECT entry_id, entity_pk, payload::text AS payload " +
                         "FROM pharmacy.data_entry_20min_queue LIMIT 50";
-        SqlRowSet rs = jdbc.queryForRowSet(sql);
-        List<DataEntry> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
+        return jdbc.query(sql, JdbcDataEntryDao::mapRow);
     }
 
     @Override
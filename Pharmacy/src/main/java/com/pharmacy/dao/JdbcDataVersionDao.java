@@ -0,0 +1,29 @@
+package com.pharmacy.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+@Repository
+public class JdbcDataVersionDao implements DataVersionDao {
+
+    private final JdbcTemplate jdbc;
+
+    public JdbcDataVersionDao(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // read-only so it joins the caller's replica transaction: the version must never be newer than the data served with it
+    @Override
+    @Transactional(readOnly = true)
+    public DataVersion get(String table) {
+        String sql = "SELECT version, modified_at FROM pharmacy.data_version WHERE table_name = ?";
+        return DaoSupport.findOne(jdbc, sql,
+                        (rs, rowNum) -> new DataVersion(table, rs.getLong(1), rs.getObject(2, OffsetDateTime.class).toInstant()),
+                        table)
+                .orElseGet(() -> new DataVersion(table, 0, Instant.EPOCH));
+    }
+}
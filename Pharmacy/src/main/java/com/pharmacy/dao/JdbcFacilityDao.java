@@ -4,22 +4,28 @@ import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.Facility;
 import com.pharmacy.model.enums.FacilityType;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class JdbcFacilityDao implements FacilityDao {
 
+    private static final String LIST_ALL_SQL = "SELECT * FROM pharmacy.facility ORDER BY name";
+
     private final JdbcTemplate jdbc;
+    private final JdbcStreamer streamer;
 
-    public JdbcFacilityDao(JdbcTemplate jdbc) {
+    public JdbcFacilityDao(JdbcTemplate jdbc, JdbcStreamer streamer) {
         this.jdbc = jdbc;
+        this.streamer = streamer;
     }
 
-    private static Facility mapRow(SqlRowSet rs) {
+    private static Facility mapRow(ResultSet rs, int rowNum) throws SQLException {
         Facility f = new Facility();
         f.setFacilityId(rs.getLong("facility_id"));
         f.setName(rs.getString("name"));
@@ -34,21 +40,19 @@ public class JdbcFacilityDao implements FacilityDao {
 
     @Override
     public Facility getById(long facilityId) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.facility WHERE facility_id = ?", facilityId);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("Facility not found");
+        return jdbc.query("SELECT * FROM pharmacy.facility WHERE facility_id = ?", JdbcFacilityDao::mapRow, facilityId).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Facility not found"));
     }
 
     @Override
     public List<Facility> listAll() {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.facility ORDER BY name");
-        List<Facility> facilities = new ArrayList<>();
-        while (rs.next()) {
-            facilities.add(mapRow(rs));
-        }
-        return facilities;
+        return jdbc.query(LIST_ALL_SQL, JdbcFacilityDao::mapRow);
+    }
+
+    @Override
+    public void streamAll(Consumer<? super Facility> visitor) {
+        streamer.stream(LIST_ALL_SQL, JdbcFacilityDao::mapRow, visitor);
     }
 
     @Override
@@ -88,4 +92,10 @@ public class JdbcFacilityDao implements FacilityDao {
     public boolean deleteById(long facilityId) {
         return jdbc.update("DELETE FROM pharmacy.facility WHERE facility_id = ?", facilityId) > 0;
     }
+
+    @Override
+    public void streamAffiliations(AffiliationVisitor visitor) {
+        jdbc.query("SELECT prescriber_id, facility_id FROM pharmacy.prescriber_facility ORDER BY prescriber_id, facility_id",
+                (RowCallbackHandler) rs -> visitor.visit(rs.getLong(1), rs.getLong(2)));
+    }
 }
@@ -3,22 +3,28 @@ package com.pharmacy.dao;
 import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.InsuranceInfo;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class JdbcInsuranceDao implements InsuranceDao {
 
+    private static final String LIST_ALL_SQL = "SELECT patient_id, payer_name, member_id, group_no, bin, pcn " +
+            "FROM pharmacy.insurance_profile ORDER BY patient_id";
+
     private final JdbcTemplate jdbc;
+    private final JdbcStreamer streamer;
 
-    public JdbcInsuranceDao(JdbcTemplate jdbc) {
+    public JdbcInsuranceDao(JdbcTemplate jdbc, JdbcStreamer streamer) {
         this.jdbc = jdbc;
+        this.streamer = streamer;
     }
 
-    private static InsuranceInfo mapRow(SqlRowSet rs) {
+    private static InsuranceInfo mapRow(ResultSet rs, int rowNum) throws SQLException {
         InsuranceInfo i = new InsuranceInfo();
         i.setInsuranceId(rs.getLong("patient_id")); // Use patient_id as insurance_id
         i.setPatientId  (rs.getLong("patient_id"));
@@ -32,33 +38,30 @@ public class JdbcInsuranceDao implements InsuranceDao {
 
     @Override
     public List<InsuranceInfo> listAll() {
-        SqlRowSet rs = jdbc.queryForRowSet(
-                "SELECT patient_id, payer_name, member_id, group_no, bin, pcn " +
-                        "FROM pharmacy.insurance_profile ORDER BY patient_id");
-        List<InsuranceInfo> list = new ArrayList<>();
-        while (rs.next()) list.add(mapRow(rs));
-        return list;
+        return jdbc.query(LIST_ALL_SQL, JdbcInsuranceDao::mapRow);
+    }
+
+    @Override
+    public void streamAll(Consumer<? super InsuranceInfo> visitor) {
+        streamer.stream(LIST_ALL_SQL, JdbcInsuranceDao::mapRow, visitor);
     }
 
     @Override
     public InsuranceInfo getById(long insuranceId) {
-        SqlRowSet rs = jdbc.queryForRowSet(
+        return jdbc.query(
                 "SELECT patient_id, payer_name, member_id, group_no, bin, pcn " +
-                        "FROM pharmacy.insurance_profile WHERE patient_id = ?",
-                insuranceId);
-        if (rs.next()) return mapRow(rs);
-        throw new NotFoundException("Insurance profile not found: id=" + insuranceId);
+                        "FROM pharmacy.insurance_profile WHERE patient_id = ?", JdbcInsuranceDao::mapRow,
+                insuranceId).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Insurance profile not found: id=" + insuranceId));
     }
 
     @Override
     public List<InsuranceInfo> listByPatient(long patientId) {
-        SqlRowSet rs = jdbc.queryForRowSet(
+        return jdbc.query(
                 "SELECT patient_id, payer_name, member_id, group_no, bin, pcn " +
-                        "FROM pharmacy.insurance_profile WHERE patient_id = ?",
+                        "FROM pharmacy.insurance_profile WHERE patient_id = ?", JdbcInsuranceDao::mapRow,
                 patientId);
-        List<InsuranceInfo> list = new ArrayList<>();
-        while (rs.next()) list.add(mapRow(rs));
-        return list;
     }
 
     @Override
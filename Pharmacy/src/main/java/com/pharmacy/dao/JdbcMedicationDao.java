@@ -3,21 +3,28 @@ package com.pharmacy.dao;
 import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.Medication;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Repository
 public class JdbcMedicationDao implements MedicationDao {
 
     private final JdbcTemplate jdbc;
-    public JdbcMedicationDao(JdbcTemplate jdbc) {
+    private final JdbcStreamer streamer;
+
+    public JdbcMedicationDao(JdbcTemplate jdbc, JdbcStreamer streamer) {
         this.jdbc = jdbc;
+        this.streamer = streamer;
     }
 
-    private static Medication mapRow(SqlRowSet rs) {
+    private static Medication mapRow(ResultSet rs, int rowNum) throws SQLException {
         Medication m = new Medication();
         m.setMedicationId   (rs.getLong("medication_id"));
         m.setName           (rs.getString("generic_name"));
@@ -29,11 +36,9 @@ public class JdbcMedicationDao implements MedicationDao {
     @Override
     public Medication getById(long medicationId) {
         String sql = "SELECT medication_id, generic_name, brand_name, dosage_form FROM pharmacy.medication WHERE medication_id = ?";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, medicationId);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("Medication not found");
+        return jdbc.query(sql, JdbcMedicationDao::mapRow, medicationId).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Medication not found"));
     }
 
     @Override
@@ -42,29 +47,42 @@ public class JdbcMedicationDao implements MedicationDao {
                      "FROM pharmacy.medication m " +
                      "JOIN pharmacy.product p ON m.medication_id = p.medication_id " +
                      "WHERE p.ndc = ?";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, ndc);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("Medication not found");
+        return jdbc.query(sql, JdbcMedicationDao::mapRow, ndc).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Medication not found"));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Medication> searchByName(String q) {
         String sql = "SELECT medication_id, generic_name, brand_name, dosage_form FROM pharmacy.medication WHERE generic_name ILIKE ? ORDER BY generic_name";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, "%" + q + "%");
-        List<Medication> meds = new ArrayList<>();
-        while (rs.next()) meds.add(mapRow(rs));
-        return meds;
+        return jdbc.query(sql, JdbcMedicationDao::mapRow, "%" + q + "%");
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Medication> listAll() {
         String sql = "SELECT medication_id, generic_name, brand_name, dosage_form FROM pharmacy.medication ORDER BY generic_name";
-        SqlRowSet rs = jdbc.queryForRowSet(sql);
-        List<Medication> meds = new ArrayList<>();
-        while (rs.next()) meds.add(mapRow(rs));
-        return meds;
+        return jdbc.query(sql, JdbcMedicationDao::mapRow);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> medicationIdsByNdc() {
+        String sql = "SELECT ndc, medication_id FROM pharmacy.product WHERE ndc IS NOT NULL AND medication_id IS NOT NULL";
+        return jdbc.query(sql, rs -> {
+            Map<String, Long> ids = new HashMap<>();
+            while (rs.next()) {
+                ids.put(rs.getString(1), rs.getLong(2));
+            }
+            return ids;
+        });
+    }
+
+    @Override
+    public void streamAll(Consumer<? super Medication> visitor) {
+        String sql = "SELECT medication_id, generic_name, brand_name, dosage_form FROM pharmacy.medication ORDER BY generic_name";
+        streamer.stream(sql, JdbcMedicationDao::mapRow, visitor);
     }
 
     @Override
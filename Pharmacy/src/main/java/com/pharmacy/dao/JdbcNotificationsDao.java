@@ -5,19 +5,21 @@ import com.pharmacy.model.Notifications;
 import com.pharmacy.model.enums.NotificationStatus;
 import com.pharmacy.model.enums.CaseKind;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
 @Repository
 public class JdbcNotificationsDao implements NotificationsDao {
 
+    private static final String COLUMNS = "notification_id, patient_id, prescription_id, phone, message, created_at, sent_at, status";
+
     private final JdbcTemplate jdbc;
     public JdbcNotificationsDao(JdbcTemplate jdbc) { this.jdbc = jdbc; }
 
-    private static Notifications mapRow(SqlRowSet rs) {
+    private static Notifications mapRow(ResultSet rs, int rowNum) throws SQLException {
         Notifications n = new Notifications();
         n.setNotificationId         (rs.getLong("notification_id"));
         n.setCaseId                 (rs.getLong("prescription_id"));
@@ -45,21 +47,16 @@ public class JdbcNotificationsDao implements NotificationsDao {
 
     @Override
     public Notifications getById(long notificationId) {
-        String sql = "SELECT notification_id, patient_id, prescription_id, phone, message, created_at, sent_at, status " +
-                "FROM pharmacy.patient_notification WHERE notification_id = ?";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, notificationId);
-        if (rs.next()) return mapRow(rs);
-        throw new NotFoundException("Notification not found: id=" + notificationId);
+        String sql = "SELECT " + COLUMNS + " FROM pharmacy.patient_notification WHERE notification_id = ?";
+        return jdbc.query(sql, JdbcNotificationsDao::mapRow, notificationId).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Notification not found: id=" + notificationId));
     }
 
     @Override
     public List<Notifications> listPending() {
-        String sql = "SELECT notification_id, patient_id, prescription_id, phone, message, created_at, sent_at, status " +
-                "FROM pharmacy.patient_notification WHERE status = 'PENDING' ORDER BY created_at ASC";
-        SqlRowSet rs = jdbc.queryForRowSet(sql);
-        List<Notifications> list = new ArrayList<>();
-        while (rs.next()) list.add(mapRow(rs));
-        return list;
+        String sql = "SELECT " + COLUMNS + " FROM pharmacy.patient_notification WHERE status = 'PENDING' ORDER BY created_at ASC";
+        return jdbc.query(sql, JdbcNotificationsDao::mapRow);
     }
 
     @Override
@@ -87,15 +84,16 @@ public class JdbcNotificationsDao implements NotificationsDao {
 
     @Override
     public Notifications markSent(long notificationId) {
-        int rows = jdbc.update("UPDATE pharmacy.patient_notification SET status = 'SENT', sent_at = now() WHERE notification_id = ?", notificationId);
-        if (rows == 0) throw new NotFoundException("Notification not found: id=" + notificationId);
-        return getById(notificationId);
+        String sql = "UPDATE pharmacy.patient_notification SET status = 'SENT', sent_at = now() WHERE notification_id = ? " +
+                "RETURNING " + COLUMNS;
+        return DaoSupport.updateReturning(jdbc, sql, JdbcNotificationsDao::mapRow,
+                "Notification not found: id=" + notificationId, notificationId);
     }
 
     @Override
     public Notifications updateStatus(long notificationId, NotificationStatus status) {
-        int rows = jdbc.update("UPDATE pharmacy.patient_notification SET status = ? WHERE notification_id = ?", status.name(), notificationId);
-        if (rows == 0) throw new NotFoundException("Notification not found: id=" + notificationId);
-        return getById(notificationId);
+        String sql = "UPDATE pharmacy.patient_notification SET status = ? WHERE notification_id = ? RETURNING " + COLUMNS;
+        return DaoSupport.updateReturning(jdbc, sql, JdbcNotificationsDao::mapRow,
+                "Notification not found: id=" + notificationId, status.name(), notificationId);
     }
 }
@@ -1,86 +1,123 @@
 package com.pharmacy.dao;
 
-import com.pharmacy.model.enums.Sex;
-
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.ContactInfo;
 import com.pharmacy.model.Patient;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class JdbcPatientDao implements PatientDao {
 
+    private static final String LIST_ALL_SQL = "SELECT * FROM pharmacy.patient ORDER BY last_name, first_name";
+
     private final JdbcTemplate jdbc;
-    public JdbcPatientDao(JdbcTemplate jdbc) {
+    private final JdbcStreamer streamer;
+
+    public JdbcPatientDao(JdbcTemplate jdbc, JdbcStreamer streamer) {
         this.jdbc = jdbc;
+        this.streamer = streamer;
     }
 
-    private static Patient mapRow(SqlRowSet rs) {
-        ContactInfo c = new ContactInfo(
-                rs.getString("first_name"),
-                rs.getString("last_name"),
-                rs.getString("address"),
-                rs.getString("city"),
-                rs.getString("state"),
-                rs.getString("zip_code"),
-                rs.getString("phone"),
-                rs.getString("email")
-        );
-        Patient p = new Patient();
-        p.setPatientId          (rs.getLong("patient_id"));
-        p.setContact            (c);
-        java.sql.Date dob = rs.getDate("date_of_birth");
-        p.setDateOfBirth        (dob != null ? dob.toLocalDate() : null);
-        p.setSex    (Sex.valueOf(rs.getString("sex")));
-        return p;
+    @Override
+    public Patient getById(long patientId) {
+        return findById(patientId).orElseThrow(() -> new NotFoundException("Patient not found"));
     }
 
     @Override
-    public Patient getById(long patientId) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.patient WHERE patient_id = ?", patientId);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("Patient not found");
+    public Optional<Patient> findById(long patientId) {
+        return DaoSupport.findOne(jdbc, "SELECT * FROM pharmacy.patient WHERE patient_id = ?", RowMappers.PATIENT.mapper(), patientId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Patient> listAll() {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.patient ORDER BY last_name, first_name");
-        List<Patient> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
+        return jdbc.query(LIST_ALL_SQL, RowMappers.PATIENT.mapper());
     }
 
     @Override
-    public Patient findByPhoneDigits(String phoneDigits) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT patient_id " +
-                        "FROM pharmacy.patient WHERE phone_digits = ?",
-                        phoneDigits);
-        if (!rs.next()) {
-            throw new NotFoundException("Patient not found");
+    public void streamAll(Consumer<? super Patient> visitor) {
+        streamer.stream(LIST_ALL_SQL, RowMappers.PATIENT.mapper(), visitor);
+    }
+
+    @Override
+    public List<Patient> findAllByPhoneDigits(String phoneDigits) {
+        return jdbc.query("SELECT * FROM pharmacy.patient WHERE phone_digits = ? ORDER BY last_name, first_name, patient_id",
+                RowMappers.PATIENT.mapper(), phoneDigits);
+    }
+
+    @Override
+    public List<Patient> listByIds(Collection<Long> patientIds) {
+        if (patientIds.isEmpty()) {
+            return List.of();
         }
-        return getById(rs.getLong("patient_id"));
+        return jdbc.query("SELECT * FROM pharmacy.patient WHERE patient_id = ANY(?::bigint[]) ORDER BY last_name, first_name, patient_id",
+                RowMappers.PATIENT.mapper(), (Object) patientIds.toArray(new Long[0]));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Map<Long, String> phoneDigitsById() {
+        return jdbc.query("SELECT patient_id, phone_digits FROM pharmacy.patient WHERE phone_digits <> ''", rs -> {
+            Map<Long, String> digits = new HashMap<>();
+            while (rs.next()) {
+                digits.put(rs.getLong(1), rs.getString(2));
+            }
+            return digits;
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Patient> searchByName(String namePart) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.patient " +
-                        "WHERE first_name ILIKE ? OR last_name ILIKE ? ORDER BY last_name, first_name",
+        return jdbc.query("SELECT * FROM pharmacy.patient " +
+                        "WHERE first_name ILIKE ? OR last_name ILIKE ? ORDER BY last_name, first_name", RowMappers.PATIENT.mapper(),
                         "%" + namePart + "%", "%" + namePart + "%");
-        List<Patient> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<Patient> listPage(String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 3);
+        List<Patient> rows = after == null
+                ? jdbc.query("SELECT * FROM pharmacy.patient " +
+                        "ORDER BY last_name, first_name, patient_id LIMIT ?", RowMappers.PATIENT.mapper(), size + 1)
+                : jdbc.query("SELECT * FROM pharmacy.patient " +
+                        "WHERE (last_name, first_name, patient_id) > (?, ?, ?) " +
+                        "ORDER BY last_name, first_name, patient_id LIMIT ?", RowMappers.PATIENT.mapper(),
+                        after.getString(0), after.getString(1), after.getLong(2), size + 1);
+        return KeysetCursor.toPage(rows, size, JdbcPatientDao::cursorOf);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<Patient> searchByNamePage(String namePart, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 3);
+        String like = "%" + namePart + "%";
+        List<Patient> rows = after == null
+                ? jdbc.query("SELECT * FROM pharmacy.patient " +
+                        "WHERE (first_name ILIKE ? OR last_name ILIKE ?) " +
+                        "ORDER BY last_name, first_name, patient_id LIMIT ?", RowMappers.PATIENT.mapper(),
+                        like, like, size + 1)
+                : jdbc.query("SELECT * FROM pharmacy.patient " +
+                        "WHERE (first_name ILIKE ? OR last_name ILIKE ?) " +
+                        "AND (last_name, first_name, patient_id) > (?, ?, ?) " +
+                        "ORDER BY last_name, first_name, patient_id LIMIT ?", RowMappers.PATIENT.mapper(),
+                        like, like, after.getString(0), after.getString(1), after.getLong(2), size + 1);
+        return KeysetCursor.toPage(rows, size, JdbcPatientDao::cursorOf);
+    }
+
+    private static String cursorOf(Patient p) {
+        return KeysetCursor.encode(p.getContact().getLastName(), p.getContact().getFirstName(), p.getPatientId());
     }
 
     @Override
@@ -125,4 +162,9 @@ public class JdbcPatientDao implements PatientDao {
         return p;
     }
 
+    @Override
+    public boolean deletePatient(long patientId) {
+        return jdbc.update("DELETE FROM pharmacy.patient WHERE patient_id = ?", patientId) > 0;
+    }
+
 }
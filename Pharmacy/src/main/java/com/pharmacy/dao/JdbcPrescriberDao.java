@@ -1,84 +1,108 @@
 package com.pharmacy.dao;
 
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.ContactInfo;
 import com.pharmacy.model.Prescriber;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class JdbcPrescriberDao implements PrescriberDao {
 
+    private static final String LIST_ALL_SQL = "SELECT * FROM pharmacy.prescriber ORDER BY last_name, first_name";
+
     private final JdbcTemplate jdbc;
-    public JdbcPrescriberDao(JdbcTemplate jdbc) {
+    private final JdbcStreamer streamer;
+
+    public JdbcPrescriberDao(JdbcTemplate jdbc, JdbcStreamer streamer) {
         this.jdbc = jdbc;
+        this.streamer = streamer;
     }
 
-    private static Prescriber mapRow(SqlRowSet rs) {
-        ContactInfo c = new ContactInfo(
-                rs.getString("first_name"),
-                rs.getString("last_name"),
-                rs.getString("address"),
-                rs.getString("city"),
-                rs.getString("state"),
-                rs.getString("zip_code"),
-                rs.getString("phone"),
-                rs.getString("email"));
-        Prescriber p = new Prescriber();
-         p.setPrescriberId      (rs.getLong("prescriber_id"));
-         p.setNpi               (rs.getString("npi"));
-         p.setContact           (c);
-         return p;
+    @Override
+    public Prescriber getById(long prescriberId) {
+        return findById(prescriberId).orElseThrow(() -> new NotFoundException("Prescriber not found"));
     }
 
     @Override
-    public Prescriber getById(long prescriberId) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescriber WHERE prescriber_id = ?",
-                        prescriberId);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("Prescriber not found");
+    public Optional<Prescriber> findById(long prescriberId) {
+        return DaoSupport.findOne(jdbc, "SELECT * FROM pharmacy.prescriber WHERE prescriber_id = ?",
+                RowMappers.PRESCRIBER.mapper(), prescriberId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Prescriber> listAll() {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescriber ORDER BY last_name, first_name");
-        List<Prescriber> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
+        return jdbc.query(LIST_ALL_SQL, RowMappers.PRESCRIBER.mapper());
+    }
+
+    @Override
+    public void streamAll(Consumer<? super Prescriber> visitor) {
+        streamer.stream(LIST_ALL_SQL, RowMappers.PRESCRIBER.mapper(), visitor);
     }
 
     @Override
     public Prescriber getByNpi(String npi) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescriber WHERE npi = ?",
-                        npi);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("Prescriber not found");
+        return findByNpi(npi).orElseThrow(() -> new NotFoundException("Prescriber not found"));
     }
 
     @Override
+    public Optional<Prescriber> findByNpi(String npi) {
+        return DaoSupport.findOne(jdbc, "SELECT * FROM pharmacy.prescriber WHERE npi = ?", RowMappers.PRESCRIBER.mapper(), npi);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Prescriber> searchByName(String namePart) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescriber " +
-                        "WHERE first_name ILIKE ? OR last_name ILIKE ? ORDER BY last_name, first_name",
+        return jdbc.query("SELECT * FROM pharmacy.prescriber " +
+                        "WHERE first_name ILIKE ? OR last_name ILIKE ? ORDER BY last_name, first_name", RowMappers.PRESCRIBER.mapper(),
                         "%" + namePart + "%", "%" + namePart + "%");
-        List<Prescriber> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<Prescriber> listPage(String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 3);
+        List<Prescriber> rows = after == null
+                ? jdbc.query("SELECT * FROM pharmacy.prescriber " +
+                        "ORDER BY last_name, first_name, prescriber_id LIMIT ?", RowMappers.PRESCRIBER.mapper(), size + 1)
+                : jdbc.query("SELECT * FROM pharmacy.prescriber " +
+                        "WHERE (last_name, first_name, prescriber_id) > (?, ?, ?) " +
+                        "ORDER BY last_name, first_name, prescriber_id LIMIT ?", RowMappers.PRESCRIBER.mapper(),
+                        after.getString(0), after.getString(1), after.getLong(2), size + 1);
+        return KeysetCursor.toPage(rows, size, JdbcPrescriberDao::cursorOf);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<Prescriber> searchByNamePage(String namePart, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 3);
+        String like = "%" + namePart + "%";
+        List<Prescriber> rows = after == null
+                ? jdbc.query("SELECT * FROM pharmacy.prescriber " +
+                        "WHERE (first_name ILIKE ? OR last_name ILIKE ?) " +
+                        "ORDER BY last_name, first_name, prescriber_id LIMIT ?", RowMappers.PRESCRIBER.mapper(),
+                        like, like, size + 1)
+                : jdbc.query("SELECT * FROM pharmacy.prescriber " +
+                        "WHERE (first_name ILIKE ? OR last_name ILIKE ?) " +
+                        "AND (last_name, first_name, prescriber_id) > (?, ?, ?) " +
+                        "ORDER BY last_name, first_name, prescriber_id LIMIT ?", RowMappers.PRESCRIBER.mapper(),
+                        like, like, after.getString(0), after.getString(1), after.getLong(2), size + 1);
+        return KeysetCursor.toPage(rows, size, JdbcPrescriberDao::cursorOf);
+    }
+
+    private static String cursorOf(Prescriber p) {
+        return KeysetCursor.encode(p.getContact().getLastName(), p.getContact().getFirstName(), p.getPrescriberId());
     }
 
     @Override
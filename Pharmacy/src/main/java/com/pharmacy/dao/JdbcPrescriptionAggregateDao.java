@@ -0,0 +1,114 @@
+package com.pharmacy.dao;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacy.dto.PrescriptionAggregateDto;
+import com.pharmacy.exception.NotFoundException;
+import com.pharmacy.model.Fulfillment;
+import com.pharmacy.model.Patient;
+import com.pharmacy.model.Prescriber;
+import com.pharmacy.model.Prescription;
+import com.pharmacy.model.PrescriptionItem;
+import com.pharmacy.model.Product;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Loads a prescription and its whole object graph in one statement. The child rows are
+ * aggregated into JSON by lateral subqueries, with keys named after the model properties
+ * so Jackson can bind them directly.
+ */
+@Repository
+public class JdbcPrescriptionAggregateDao implements PrescriptionAggregateDao {
+
+    private static final String SQL =
+            "SELECT rx.*, " +
+            "       json_build_object('patientId', pa.patient_id, 'dateOfBirth', pa.date_of_birth, 'sex', pa.sex, " +
+            "           'contact', json_build_object('firstName', pa.first_name, 'lastName', pa.last_name, " +
+            "               'address', pa.address, 'city', pa.city, 'state', pa.state, 'zipCode', pa.zip_code, " +
+            "               'phone', pa.phone, 'email', pa.email, 'sex', pa.sex)) AS patient_json, " +
+            "       json_build_object('prescriberId', pr.prescriber_id, 'npi', pr.npi, " +
+            "           'contact', json_build_object('firstName', pr.first_name, 'lastName', pr.last_name, " +
+            "               'address', pr.address, 'city', pr.city, 'state', pr.state, 'zipCode', pr.zip_code, " +
+            "               'phone', pr.phone, 'email', pr.email)) AS prescriber_json, " +
+            "       items.items_json, fills.fulfillments_json, prods.products_json " +
+            "FROM unnest(?::bigint[]) WITH ORDINALITY AS req(prescription_id, ord) " +
+            "JOIN pharmacy.prescription rx ON rx.prescription_id = req.prescription_id " +
+            "JOIN pharmacy.patient pa ON pa.patient_id = rx.patient_id " +
+            "JOIN pharmacy.prescriber pr ON pr.prescriber_id = rx.prescriber_id " +
+            "CROSS JOIN LATERAL ( " +
+            "    SELECT COALESCE(json_agg(json_build_object('itemId', pi.item_id, 'prescriptionId', pi.prescription_id, " +
+            "               'medicationId', pi.medication_id, 'strength', pi.strength, 'dose', pi.dose, " +
+            "               'quantity', pi.quantity, 'sig', pi.sig, 'daw', '_' || pi.daw, 'refills', pi.refills) " +
+            "           ORDER BY pi.item_id), '[]'::json) AS items_json " +
+            "    FROM pharmacy.prescription_item pi WHERE pi.prescription_id = rx.prescription_id) items " +
+            "CROSS JOIN LATERAL ( " +
+            "    SELECT COALESCE(json_agg(json_build_object('fulfillmentId', f.fulfillment_id, 'prescriptionId', f.prescription_id, " +
+            "               'productId', f.product_id, 'lotId', f.lot_id, 'quantityDispensed', f.quantity_dispensed, " +
+            "               'filledAt', f.filled_at, 'filledByUserId', f.filled_by_user_id, " +
+            "               'verifiedByPharmacistId', f.verified_by_pharmacist_id, 'status', f.status) " +
+            "           ORDER BY f.filled_at NULLS LAST, f.fulfillment_id), '[]'::json) AS fulfillments_json " +
+            "    FROM pharmacy.fulfillment f WHERE f.prescription_id = rx.prescription_id) fills " +
+            "CROSS JOIN LATERAL ( " +
+            "    SELECT COALESCE(json_agg(json_build_object('productId', p.product_id, 'ndc', p.ndc, 'name', p.name, " +
+            "               'genericName', p.generic_name, 'manufacturer', p.manufacturer, 'dosageForm', p.dosage_form, " +
+            "               'strength', p.strength, 'rx', p.is_rx, 'vaccine', p.is_vaccine, 'unitPrice', p.unit_price, " +
+            "               'stockQty', p.stock_qty, 'medicationId', p.medication_id) " +
+            "           ORDER BY p.name), '[]'::json) AS products_json " +
+            "    FROM pharmacy.product p " +
+            "    WHERE p.product_id IN (SELECT f.product_id FROM pharmacy.fulfillment f WHERE f.prescription_id = rx.prescription_id)) prods " +
+            "ORDER BY req.ord";
+
+    private static final TypeReference<List<PrescriptionItem>> ITEMS = new TypeReference<>() {};
+    private static final TypeReference<List<Fulfillment>> FULFILLMENTS = new TypeReference<>() {};
+    private static final TypeReference<List<Product>> PRODUCTS = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+
+    public JdbcPrescriptionAggregateDao(JdbcTemplate jdbc, ObjectMapper objectMapper) {
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public PrescriptionAggregateDto getById(long prescriptionId) {
+        return listByIds(List.of(prescriptionId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Prescription not found"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PrescriptionAggregateDto> listByIds(List<Long> prescriptionIds) {
+        if (prescriptionIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query(SQL, aggregateMapper(), (Object) prescriptionIds.toArray(new Long[0]));
+    }
+
+    private RowMapper<PrescriptionAggregateDto> aggregateMapper() {
+        RowMapper<Prescription> rxMapper = RowMappers.PRESCRIPTION.mapper();
+        return (ResultSet rs, int rowNum) -> {
+            PrescriptionAggregateDto dto = new PrescriptionAggregateDto();
+            dto.setPrescription(rxMapper.mapRow(rs, rowNum));
+            try {
+                dto.setPatient(objectMapper.readValue(rs.getString("patient_json"), Patient.class));
+                dto.setPrescriber(objectMapper.readValue(rs.getString("prescriber_json"), Prescriber.class));
+                dto.setItems(objectMapper.readValue(rs.getString("items_json"), ITEMS));
+                dto.setFulfillments(objectMapper.readValue(rs.getString("fulfillments_json"), FULFILLMENTS));
+                dto.setProducts(objectMapper.readValue(rs.getString("products_json"), PRODUCTS));
+            } catch (JsonProcessingException e) {
+                throw new DataRetrievalFailureException("Could not read prescription aggregate", e);
+            }
+            return dto;
+        };
+    }
+}
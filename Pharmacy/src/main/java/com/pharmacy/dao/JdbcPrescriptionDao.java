@@ -1,110 +1,87 @@
 package com.pharmacy.dao;
 
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.Prescription;
 import com.pharmacy.model.enums.RxStatus;
-import com.pharmacy.model.enums.WorkflowStage;
 import com.pharmacy.model.enums.WorkflowStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository
 public class JdbcPrescriptionDao implements PrescriptionDao {
 
     private final JdbcTemplate jdbc;
-    public JdbcPrescriptionDao(JdbcTemplate jdbc) {
+    private final JdbcStreamer streamer;
+
+    public JdbcPrescriptionDao(JdbcTemplate jdbc, JdbcStreamer streamer) {
         this.jdbc = jdbc;
+        this.streamer = streamer;
     }
 
-    private static Prescription mapRow(SqlRowSet rs) {
-        Prescription p = new Prescription();
-        p.setPrescriptionId                 (rs.getLong("prescription_id"));
-        p.setRxNumber                       (rs.getString("rx_number"));
-        p.setPatientId                      (rs.getLong("patient_id"));
-        p.setPrescriberId                   (rs.getLong("prescriber_id"));
-        p.setFacilityId                     (rs.getLong("facility_id"));
-        java.sql.Date d = rs.getDate("date_written");
-        p.setDateWritten                    (d == null ? null : d.toLocalDate());
-        p.setStatus                         (RxStatus.valueOf(rs.getString("status")));
-
-        // Workflow fields
-        String stageStr = rs.getString("current_stage");
-        if (stageStr != null) {
-            p.setCurrentStage(WorkflowStage.valueOf(stageStr));
-        }
-
-        String workflowStatusStr = rs.getString("workflow_status");
-        if (workflowStatusStr != null) {
-            p.setWorkflowStatus(WorkflowStatus.valueOf(workflowStatusStr));
-        }
-
-        java.sql.Timestamp enteredAt = rs.getTimestamp("entered_workflow_at");
-        if (enteredAt != null) {
-            p.setEnteredWorkflowAt(enteredAt.toLocalDateTime());
-        }
-
-        java.sql.Timestamp stageEnteredAt = rs.getTimestamp("current_stage_entered_at");
-        if (stageEnteredAt != null) {
-            p.setCurrentStageEnteredAt(stageEnteredAt.toLocalDateTime());
-        }
-
-        p.setAssignedToUserId               (rs.getString("assigned_to_user_id"));
-        p.setNotes                          (rs.getString("notes"));
-        p.setPriority                       (rs.getBoolean("priority"));
-
-        java.sql.Timestamp completedAt = rs.getTimestamp("completed_at");
-        if (completedAt != null) {
-            p.setCompletedAt(completedAt.toLocalDateTime());
-        }
-
-        return p;
+    @Override
+    public Prescription getById(long prescriptionId) {
+        return findById(prescriptionId).orElseThrow(() -> new NotFoundException("Prescription not found"));
     }
 
     @Override
-    public Prescription getById(long prescriptionId) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescription WHERE prescription_id=?",
-                        prescriptionId);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("Prescription not found");
+    public Optional<Prescription> findById(long prescriptionId) {
+        return DaoSupport.findOne(jdbc, "SELECT * FROM pharmacy.prescription WHERE prescription_id = ?",
+                RowMappers.PRESCRIPTION.mapper(), prescriptionId);
     }
 
     @Override
     public List<Prescription> listByPatient(long patientId) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescription WHERE patient_id = ? ORDER BY date_written DESC",
+        return jdbc.query("SELECT * FROM pharmacy.prescription WHERE patient_id = ? ORDER BY date_written DESC", RowMappers.PRESCRIPTION.mapper(),
                         patientId);
-        List<Prescription> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
     }
 
     @Override
     public List<Prescription> listByPrescriber(long prescriberId) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescription WHERE prescriber_id = ? ORDER BY date_written DESC",
+        return jdbc.query("SELECT * FROM pharmacy.prescription WHERE prescriber_id = ? ORDER BY date_written DESC", RowMappers.PRESCRIPTION.mapper(),
                         prescriberId);
-        List<Prescription> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
+    }
+
+    @Override
+    public void streamAll(Consumer<? super Prescription> visitor) {
+        streamer.stream("SELECT * FROM pharmacy.prescription ORDER BY prescription_id", RowMappers.PRESCRIPTION.mapper(), visitor);
+    }
+
+    @Override
+    public PageDto<Prescription> listByPatientPage(long patientId, String cursor, int size) {
+        return pageBy("patient_id", patientId, cursor, size);
+    }
+
+    @Override
+    public PageDto<Prescription> listByPrescriberPage(long prescriberId, String cursor, int size) {
+        return pageBy("prescriber_id", prescriberId, cursor, size);
+    }
+
+    // column is always one of the fixed names above, never user input
+    private PageDto<Prescription> pageBy(String column, long id, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 2);
+        List<Prescription> rows = after == null
+                ? jdbc.query("SELECT * FROM pharmacy.prescription WHERE " + column + " = ? " +
+                        "ORDER BY date_written DESC, prescription_id DESC LIMIT ?", RowMappers.PRESCRIPTION.mapper(),
+                        id, size + 1)
+                : jdbc.query("SELECT * FROM pharmacy.prescription WHERE " + column + " = ? " +
+                        "AND (date_written, prescription_id) < (?, ?) " +
+                        "ORDER BY date_written DESC, prescription_id DESC LIMIT ?", RowMappers.PRESCRIPTION.mapper(),
+                        id, after.getDate(0), after.getLong(1), size + 1);
+        return KeysetCursor.toPage(rows, size,
+                rx -> KeysetCursor.encode(rx.getDateWritten(), rx.getPrescriptionId()));
     }
 
     @Override
     public List<Prescription> listByPatientAndStatus(long patientId, RxStatus status) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescription WHERE patient_id = ? AND status = ? ORDER BY date_written DESC",
+        return jdbc.query("SELECT * FROM pharmacy.prescription WHERE patient_id = ? AND status = ? ORDER BY date_written DESC", RowMappers.PRESCRIPTION.mapper(),
                         patientId, status.name());
-        List<Prescription> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
     }
 
     @Override
@@ -130,22 +107,62 @@ public class JdbcPrescriptionDao implements PrescriptionDao {
 
     @Override
     public Prescription updateStatus(long prescriptionId, RxStatus status) {
-        int rows = jdbc.update("UPDATE pharmacy.prescription SET status = ? WHERE prescription_id = ?",
-                        status.name(), prescriptionId);
-        if (rows == 0) {
-            throw new NotFoundException("Prescription not found");
-        }
-        return getById(prescriptionId);
+        return DaoSupport.updateReturning(jdbc,
+                "UPDATE pharmacy.prescription SET status = ? WHERE prescription_id = ? RETURNING *",
+                RowMappers.PRESCRIPTION.mapper(), "Prescription not found", status.name(), prescriptionId);
     }
 
     @Override
     public Prescription updatePrescriber(long prescriptionId, long prescriberId) {
-        int rows = jdbc.update("UPDATE pharmacy.prescription SET prescriber_id = ? WHERE prescription_id = ?",
-                        prescriberId, prescriptionId);
-        if (rows == 0) {
-            throw new NotFoundException("Prescription not found");
-        }
-        return getById(prescriptionId);
+        return DaoSupport.updateReturning(jdbc,
+                "UPDATE pharmacy.prescription SET prescriber_id = ? WHERE prescription_id = ? RETURNING *",
+                RowMappers.PRESCRIPTION.mapper(), "Prescription not found", prescriberId, prescriptionId);
+    }
+
+    // statuses and stage are inlined from enum names; the ids are the only parameter
+    private static final String TRANSITION_SQL = """
+        WITH req AS (
+            SELECT id AS prescription_id, min(ord) AS ord
+            FROM unnest(?::bigint[]) WITH ORDINALITY AS u(id, ord)
+            GROUP BY id
+        ), cur AS (
+            SELECT p.prescription_id, p.workflow_status
+            FROM pharmacy.prescription p JOIN req USING (prescription_id)
+            FOR UPDATE OF p
+        ), upd AS (
+            UPDATE pharmacy.prescription p
+            SET workflow_status = '%1$s',
+                current_stage = '%2$s',
+                current_stage_entered_at = CASE WHEN p.current_stage = '%2$s' THEN p.current_stage_entered_at ELSE now() END,
+                completed_at = %3$s,
+                assigned_to_user_id = NULL,
+                lease_expires_at = NULL
+            FROM cur
+            WHERE p.prescription_id = cur.prescription_id AND %4$s
+            RETURNING p.prescription_id
+        )
+        SELECT req.prescription_id, cur.workflow_status::text AS previous_status, upd.prescription_id IS NOT NULL AS applied
+        FROM req
+        LEFT JOIN cur USING (prescription_id)
+        LEFT JOIN upd USING (prescription_id)
+        ORDER BY req.ord
+    """;
+
+    @Override
+    public List<TransitionResult> transitionAll(long[] prescriptionIds, WorkflowStatus to, Set<WorkflowStatus> from) {
+        String allowed = from.isEmpty() ? "false" : from.stream()
+                .map(s -> "'" + s.name() + "'")
+                .collect(Collectors.joining(", ", "p.workflow_status IN (", ")"));
+        String completedAt = to == WorkflowStatus.COMPLETED ? "now()" : "p.completed_at";
+        String sql = TRANSITION_SQL.formatted(to.name(), to.getStage().name(), completedAt, allowed);
+        return jdbc.query(sql, (rs, rowNum) -> {
+            String previous = rs.getString("previous_status");
+            TransitionResult.Outcome outcome = previous == null ? TransitionResult.Outcome.NOT_FOUND
+                    : rs.getBoolean("applied") ? TransitionResult.Outcome.APPLIED
+                    : TransitionResult.Outcome.INVALID_TRANSITION;
+            return new TransitionResult(rs.getLong("prescription_id"),
+                    previous == null ? null : WorkflowStatus.valueOf(previous), outcome);
+        }, (Object) prescriptionIds);
     }
 
     @Override
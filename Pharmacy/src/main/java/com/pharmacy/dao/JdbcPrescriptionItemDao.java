@@ -4,11 +4,12 @@ import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.PrescriptionItem;
 import com.pharmacy.model.enums.DawCode;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
 @Repository
@@ -19,7 +20,7 @@ public class JdbcPrescriptionItemDao implements PrescriptionItemDao {
         this.jdbc = jdbc;
     }
 
-    private static PrescriptionItem mapRow(SqlRowSet rs) {
+    private static PrescriptionItem mapRow(ResultSet rs, int rowNum) throws SQLException {
         PrescriptionItem pi = new PrescriptionItem();
         pi.setItemId                        (rs.getLong("item_id"));
         pi.setPrescriptionId                (rs.getLong("prescription_id"));
@@ -31,37 +32,35 @@ public class JdbcPrescriptionItemDao implements PrescriptionItemDao {
         pi.setSig                           (rs.getString("sig"));
         String dawStr = rs.getString("daw");
         if (dawStr != null && !dawStr.isEmpty()) {
-            pi.setDaw(DawCode.valueOf(dawStr));
+            pi.setDaw(DawCode.valueOf("_" + dawStr));
         }
         pi.setRefills                       (rs.getInt("refills"));
         return pi;
     }
 
+    // daw_code_enum labels are the bare digits; DawCode constants carry a leading underscore
+    private static String dawValue(DawCode daw) {
+        return daw == null ? "0" : daw.name().substring(1);
+    }
+
     @Override
     public PrescriptionItem getById(long itemId) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescription_item WHERE item_id = ?",
-                        itemId);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("Prescription item not found");
+        return jdbc.query("SELECT * FROM pharmacy.prescription_item WHERE item_id = ?", JdbcPrescriptionItemDao::mapRow,
+                        itemId).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Prescription item not found"));
     }
 
     @Override
     public List<PrescriptionItem> listByPrescription(long prescriptionId) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.prescription_item WHERE prescription_id = ? ORDER BY item_id",
+        return jdbc.query("SELECT * FROM pharmacy.prescription_item WHERE prescription_id = ? ORDER BY item_id", JdbcPrescriptionItemDao::mapRow,
                         prescriptionId);
-        List<PrescriptionItem> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
     }
 
     @Override
     public PrescriptionItem create(PrescriptionItem item) {
-        String sql = "INSERT INTO pharmacy.prescription_item (prescription_id, medication_id, strength, dose, quantity, sig, daw, refills) VALUES (?, ?, ?, ?, ?, ?, ?, ?) RETURNING item_id";
-        String dawCode = item.getDaw() == null ? "0" : item.getDaw().name();
+        String sql = "INSERT INTO pharmacy.prescription_item (prescription_id, medication_id, strength, dose, quantity, sig, daw, refills) VALUES (?, ?, ?, ?, ?, ?, ?::pharmacy.daw_code_enum, ?) RETURNING item_id";
+        String dawCode = dawValue(item.getDaw());
         Long id = jdbc.queryForObject(sql, Long.class,
                 item.getPrescriptionId(),
                 item.getMedicationId(),
@@ -75,16 +74,36 @@ public class JdbcPrescriptionItemDao implements PrescriptionItemDao {
         return item;
     }
 
+    @Override
+    @Transactional
+    public List<PrescriptionItem> createAll(List<PrescriptionItem> items) {
+        String sql = "INSERT INTO pharmacy.prescription_item (prescription_id, medication_id, strength, dose, quantity, sig, daw, refills) VALUES (?, ?, ?, ?, ?, ?, ?::pharmacy.daw_code_enum, ?)";
+        long[] ids = DaoSupport.batchInsert(jdbc, sql, "item_id", items, (ps, item) -> {
+            ps.setLong(1, item.getPrescriptionId());
+            ps.setLong(2, item.getMedicationId());
+            ps.setString(3, item.getStrength());
+            ps.setString(4, item.getDose());
+            ps.setBigDecimal(5, item.getQuantity());
+            ps.setString(6, item.getSig());
+            ps.setString(7, dawValue(item.getDaw()));
+            ps.setInt(8, item.getRefills());
+        });
+        for (int i = 0; i < ids.length; i++) {
+            items.get(i).setItemId(ids[i]);
+        }
+        return items;
+    }
+
     @Override
     public PrescriptionItem update(PrescriptionItem item) {
-        String sql = "UPDATE pharmacy.prescription_item SET medication_id = ?, strength = ?, dose = ?, quantity = ?, sig = ?, daw = ?, refills = ? WHERE item_id = ?";
+        String sql = "UPDATE pharmacy.prescription_item SET medication_id = ?, strength = ?, dose = ?, quantity = ?, sig = ?, daw = ?::pharmacy.daw_code_enum, refills = ? WHERE item_id = ?";
         int rows = jdbc.update(sql,
                 item.getMedicationId(),
                 item.getStrength(),
                 item.getDose(),
                 item.getQuantity(),
                 item.getSig(),
-                item.getDaw() == null ? "0" : item.getDaw().name(),
+                dawValue(item.getDaw()),
                 item.getRefills(),
                 item.getItemId());
         if (rows == 0) {
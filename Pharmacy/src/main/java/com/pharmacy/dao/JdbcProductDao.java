@@ -1,93 +1,50 @@
 package com.pharmacy.dao;
 
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.Product;
 import com.pharmacy.model.enums.ProductStatus;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.time.OffsetDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class JdbcProductDao implements ProductDao {
 
+    private static final String LIST_ALL_SQL = "SELECT * FROM pharmacy.product ORDER BY name";
+
     private final JdbcTemplate jdbc;
+    private final JdbcStreamer streamer;
 
-    public JdbcProductDao(JdbcTemplate jdbc) {
+    public JdbcProductDao(JdbcTemplate jdbc, JdbcStreamer streamer) {
         this.jdbc = jdbc;
+        this.streamer = streamer;
     }
 
-    private static Product mapRow(SqlRowSet rs) {
-        Product p = new Product();
-        p.setProductId(rs.getLong("product_id"));
-        p.setNdc(rs.getString("ndc"));
-        p.setName(rs.getString("name"));
-        p.setGenericName(rs.getString("generic_name"));
-        p.setManufacturer(rs.getString("manufacturer"));
-        p.setDosageForm(rs.getString("dosage_form"));
-        p.setStrength(rs.getString("strength"));
-        p.setRx(rs.getBoolean("is_rx"));
-        p.setVaccine(rs.getBoolean("is_vaccine"));
-        p.setUnitPrice(rs.getDouble("unit_price"));
-        p.setStockQty(rs.getInt("stock_qty"));
-        p.setMedicationId(rs.getLong("medication_id"));
-        if (rs.getTimestamp("created_at") != null) {
-            p.setCreatedAt(rs.getTimestamp("created_at").toInstant().atOffset(OffsetDateTime.now().getOffset()));
-        }
-        if (rs.getTimestamp("updated_at") != null) {
-            p.setUpdatedAt(rs.getTimestamp("updated_at").toInstant().atOffset(OffsetDateTime.now().getOffset()));
-        }
-        return p;
+    @Override
+    public Product getById(long productId) {
+        return findById(productId).orElseThrow(() -> new NotFoundException("Product not found"));
     }
 
     @Override
-    public Product getById(long productId) {
-        try {
-            return jdbc.queryForObject("SELECT * FROM pharmacy.product WHERE product_id = ?",
-                (rs, rowNum) -> {
-                    Product p = new Product();
-                    p.setProductId(rs.getLong("product_id"));
-                    p.setNdc(rs.getString("ndc"));
-                    p.setName(rs.getString("name"));
-                    p.setGenericName(rs.getString("generic_name"));
-                    p.setManufacturer(rs.getString("manufacturer"));
-                    p.setDosageForm(rs.getString("dosage_form"));
-                    p.setStrength(rs.getString("strength"));
-                    p.setRx(rs.getBoolean("is_rx"));
-                    p.setVaccine(rs.getBoolean("is_vaccine"));
-                    p.setUnitPrice(rs.getDouble("unit_price"));
-                    p.setStockQty(rs.getInt("stock_qty"));
-                    p.setMedicationId(rs.getLong("medication_id"));
-                    if (rs.getTimestamp("created_at") != null) {
-                        p.setCreatedAt(rs.getTimestamp("created_at").toInstant().atOffset(OffsetDateTime.now().getOffset()));
-                    }
-                    if (rs.getTimestamp("updated_at") != null) {
-                        p.setUpdatedAt(rs.getTimestamp("updated_at").toInstant().atOffset(OffsetDateTime.now().getOffset()));
-                    }
-                    return p;
-                }, productId);
-        } catch (EmptyResultDataAccessException e) {
-            throw new NotFoundException("Product not found");
-        }
+    public Optional<Product> findById(long productId) {
+        return DaoSupport.findOne(jdbc, "SELECT * FROM pharmacy.product WHERE product_id = ?",
+                RowMappers.PRODUCT.mapper(), productId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Product> getAll() {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.product ORDER BY name");
-        List<Product> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
+        return jdbc.query(LIST_ALL_SQL, RowMappers.PRODUCT.mapper());
     }
 
     @Override
@@ -95,33 +52,40 @@ public class JdbcProductDao implements ProductDao {
         return getAll();
     }
 
+    @Override
+    public void streamAll(Consumer<? super Product> visitor) {
+        streamer.stream(LIST_ALL_SQL, RowMappers.PRODUCT.mapper(), visitor);
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO pharmacy.product " +
+            "(ndc, name, generic_name, manufacturer, dosage_form, strength, is_rx, is_vaccine, unit_price, stock_qty, medication_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static void setInsertValues(PreparedStatement ps, Product product) throws SQLException {
+        ps.setString(1, product.getNdc());
+        ps.setString(2, product.getName());
+        ps.setString(3, product.getGenericName());
+        ps.setString(4, product.getManufacturer());
+        ps.setString(5, product.getDosageForm());
+        ps.setString(6, product.getStrength());
+        ps.setBoolean(7, product.isRx());
+        ps.setBoolean(8, product.isVaccine());
+        ps.setDouble(9, product.getUnitPrice());
+        ps.setInt(10, product.getStockQty());
+        if (product.getMedicationId() != null) {
+            ps.setLong(11, product.getMedicationId());
+        } else {
+            ps.setNull(11, java.sql.Types.BIGINT);
+        }
+    }
+
     @Override
     public Product create(Product product) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         jdbc.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO pharmacy.product " +
-                "(ndc, name, generic_name, manufacturer, dosage_form, strength, is_rx, is_vaccine, unit_price, stock_qty, medication_id) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING product_id",
-                Statement.RETURN_GENERATED_KEYS);
-
-            ps.setString(1, product.getNdc());
-            ps.setString(2, product.getName());
-            ps.setString(3, product.getGenericName());
-            ps.setString(4, product.getManufacturer());
-            ps.setString(5, product.getDosageForm());
-            ps.setString(6, product.getStrength());
-            ps.setBoolean(7, product.isRx());
-            ps.setBoolean(8, product.isVaccine());
-            ps.setDouble(9, product.getUnitPrice());
-            ps.setInt(10, product.getStockQty());
-            if (product.getMedicationId() != null) {
-                ps.setLong(11, product.getMedicationId());
-            } else {
-                ps.setNull(11, java.sql.Types.BIGINT);
-            }
-
+            PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[]{"product_id"});
+            setInsertValues(ps, product);
             return ps;
         }, keyHolder);
 
@@ -132,6 +96,16 @@ public class JdbcProductDao implements ProductDao {
         return product;
     }
 
+    @Override
+    @Transactional
+    public List<Product> createAll(List<Product> products) {
+        long[] ids = DaoSupport.batchInsert(jdbc, INSERT_SQL, "product_id", products, JdbcProductDao::setInsertValues);
+        for (int i = 0; i < ids.length; i++) {
+            products.get(i).setProductId(ids[i]);
+        }
+        return products;
+    }
+
     @Override
     public Product update(Product product) {
         String sql = "UPDATE pharmacy.product " +
@@ -164,23 +138,46 @@ public class JdbcProductDao implements ProductDao {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Product> findByNdc(String ndc) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.product WHERE ndc = ? ORDER BY name", ndc);
-        List<Product> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
+        return jdbc.query("SELECT * FROM pharmacy.product WHERE ndc = ? ORDER BY name", RowMappers.PRODUCT.mapper(), ndc);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Product> findByName(String name) {
-        SqlRowSet rs = jdbc.queryForRowSet("SELECT * FROM pharmacy.product WHERE name ILIKE ? ORDER BY name", "%" + name + "%");
-        List<Product> list = new ArrayList<>();
-        while (rs.next()) {
-            list.add(mapRow(rs));
-        }
-        return list;
+        return jdbc.query("SELECT * FROM pharmacy.product WHERE name ILIKE ? ORDER BY name", RowMappers.PRODUCT.mapper(), "%" + name + "%");
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<Product> listPage(String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 2);
+        List<Product> rows = after == null
+                ? jdbc.query("SELECT * FROM pharmacy.product ORDER BY name, product_id LIMIT ?",
+                        RowMappers.PRODUCT.mapper(), size + 1)
+                : jdbc.query("SELECT * FROM pharmacy.product WHERE (name, product_id) > (?, ?) " +
+                        "ORDER BY name, product_id LIMIT ?", RowMappers.PRODUCT.mapper(),
+                        after.getString(0), after.getLong(1), size + 1);
+        return KeysetCursor.toPage(rows, size, JdbcProductDao::cursorOf);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<Product> findByNamePage(String name, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor, 2);
+        String like = "%" + name + "%";
+        List<Product> rows = after == null
+                ? jdbc.query("SELECT * FROM pharmacy.product WHERE name ILIKE ? " +
+                        "ORDER BY name, product_id LIMIT ?", RowMappers.PRODUCT.mapper(), like, size + 1)
+                : jdbc.query("SELECT * FROM pharmacy.product WHERE name ILIKE ? AND (name, product_id) > (?, ?) " +
+                        "ORDER BY name, product_id LIMIT ?", RowMappers.PRODUCT.mapper(),
+                        like, after.getString(0), after.getLong(1), size + 1);
+        return KeysetCursor.toPage(rows, size, JdbcProductDao::cursorOf);
+    }
+
+    private static String cursorOf(Product p) {
+        return KeysetCursor.encode(p.getName(), p.getProductId());
     }
 
     @Override
@@ -188,12 +185,7 @@ public class JdbcProductDao implements ProductDao {
         String sql = "SELECT DISTINCT p.* FROM pharmacy.product p " +
                     "INNER JOIN pharmacy.fulfillment f ON p.product_id = f.product_id " +
                     "WHERE f.prescription_id = ? ORDER BY p.name";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, prescriptionId);
-        List<Product> products = new ArrayList<>();
-        while (rs.next()) {
-            products.add(mapRow(rs));
-        }
-        return products;
+        return jdbc.query(sql, RowMappers.PRODUCT.mapper(), prescriptionId);
     }
 
     @Override
@@ -201,11 +193,6 @@ public class JdbcProductDao implements ProductDao {
         String sql = "SELECT DISTINCT p.* FROM pharmacy.product p " +
                     "INNER JOIN pharmacy.fulfillment f ON p.product_id = f.product_id " +
                     "WHERE f.status = ?::pharmacy.fulfillment_status ORDER BY p.name";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, status.name());
-        List<Product> products = new ArrayList<>();
-        while (rs.next()) {
-            products.add(mapRow(rs));
-        }
-        return products;
+        return jdbc.query(sql, RowMappers.PRODUCT.mapper(), status.name());
     }
 }
@@ -4,11 +4,11 @@ import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.ProductReview;
 import com.pharmacy.model.enums.ReviewStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 @Repository
@@ -20,7 +20,7 @@ public class JdbcProductReviewDao implements ProductReviewDao {
         this.jdbc = jdbc;
     }
 
-    private static ProductReview mapRow(SqlRowSet rs) {
+    private static ProductReview mapRow(ResultSet rs, int rowNum) throws SQLException {
         ProductReview r = new ProductReview();
         r.setProductReviewId            (rs.getLong("review_id"));
         r.setProductId                  (rs.getLong("product_id"));
@@ -36,37 +36,34 @@ public class JdbcProductReviewDao implements ProductReviewDao {
     @Override
     public ProductReview getById(long productReviewId) {
         String sql = "SELECT review_id, product_id, reviewer_user_id, comments, created_at, status FROM pharmacy.product_review WHERE review_id = ?";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, productReviewId);
-        if (rs.next()) return mapRow(rs);
-        throw new NotFoundException("Product review not found");
+        return jdbc.query(sql, JdbcProductReviewDao::mapRow, productReviewId).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Product review not found"));
     }
 
     @Override
     public List<ProductReview> listByProduct(long productId) {
         String sql = "SELECT review_id, product_id, reviewer_user_id, comments, created_at, status FROM pharmacy.product_review WHERE product_id = ? ORDER BY created_at DESC";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, productId);
-        List<ProductReview> list = new ArrayList<>();
-        while (rs.next()) list.add(mapRow(rs));
-        return list;
+        return jdbc.query(sql, JdbcProductReviewDao::mapRow, productId);
     }
 
     @Override
     public ProductReview create(ProductReview r) {
-        String sql = "INSERT INTO pharmacy.product_review (product_id, reviewer_user_id, rating, comments, status) VALUES (?, ?, ?, ?, ?) RETURNING review_id";
-        Long id = jdbc.queryForObject(sql, Long.class,
+        String sql = "INSERT INTO pharmacy.product_review (product_id, reviewer_user_id, rating, comments, status) VALUES (?, ?, ?, ?, ?) " +
+                "RETURNING review_id, product_id, reviewer_user_id, comments, created_at, status";
+        return DaoSupport.insertReturning(jdbc, sql, JdbcProductReviewDao::mapRow,
                 r.getProductId(),
                 r.getReviewerUserId(),
                 5,
                 r.getComment(),
                 (r.getStatus() == null ? ReviewStatus.PENDING.name() : r.getStatus().name()));
-        r.setProductReviewId(id);
-        return getById(r.getProductReviewId());
     }
 
     @Override
     public ProductReview updateStatus(long productReviewId, ReviewStatus status) {
-        int rows = jdbc.update("UPDATE pharmacy.product_review SET status = ? WHERE review_id = ?", status.name(), productReviewId);
-        if (rows == 0) throw new NotFoundException("Product review not found");
-        return getById(productReviewId);
+        String sql = "UPDATE pharmacy.product_review SET status = ? WHERE review_id = ? " +
+                "RETURNING review_id, product_id, reviewer_user_id, comments, created_at, status";
+        return DaoSupport.updateReturning(jdbc, sql, JdbcProductReviewDao::mapRow,
+                "Product review not found", status.name(), productReviewId);
     }
 }
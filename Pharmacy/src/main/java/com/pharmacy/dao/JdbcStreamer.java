@@ -0,0 +1,56 @@
+package com.pharmacy.dao;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Runs a query through a server-side cursor and hands each mapped row to a visitor,
+ * so large result sets never have to be held in memory as a list.
+ * PostgreSQL only honours the fetch size inside a transaction, hence the read-only
+ * transaction wrapped around every stream. Streams run on the reporting pool so a long export
+ * never holds an interactive connection.
+ */
+@Component
+public class JdbcStreamer {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+
+    public JdbcStreamer(@Qualifier("reportingJdbcTemplate") JdbcTemplate jdbc,
+                        @Qualifier("reportingTransactionManager") PlatformTransactionManager transactionManager,
+                        @Value("${pharmacy.jdbc.stream-fetch-size:500}") int fetchSize) {
+        this.jdbc = jdbc;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    public <T> void stream(String sql, RowMapper<T> mapper, Consumer<? super T> visitor, Object... args) {
+        readOnlyTx.executeWithoutResult(status -> jdbc.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            new ArgumentPreparedStatementSetter(args).setValues(ps);
+            return ps;
+        }, new RowCallbackHandler() {
+            private int rowNum = 0;
+
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                visitor.accept(mapper.mapRow(rs, rowNum++));
+            }
+        }));
+    }
+}
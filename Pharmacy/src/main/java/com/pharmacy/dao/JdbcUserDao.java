@@ -3,23 +3,29 @@ package com.pharmacy.dao;
 import com.pharmacy.exception.NotFoundException;
 import com.pharmacy.model.User;
 import com.pharmacy.model.enums.Role;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class JdbcUserDao implements UserDao {
 
     private final JdbcTemplate jdbc;
+    private final JdbcStreamer streamer;
+    private final ApplicationEventPublisher events;
 
-    public JdbcUserDao(JdbcTemplate jdbc) {
+    public JdbcUserDao(JdbcTemplate jdbc, JdbcStreamer streamer, ApplicationEventPublisher events) {
         this.jdbc = jdbc;
+        this.streamer = streamer;
+        this.events = events;
     }
 
-    private static User mapRow(SqlRowSet rs) {
+    private static User mapRow(ResultSet rs, int rowNum) throws SQLException {
         User user = new User();
         user.setUserId              (rs.getLong("user_id"));
         user.setUsername            (rs.getString("username"));
@@ -34,42 +40,27 @@ public class JdbcUserDao implements UserDao {
     @Override
     public User getById(long userId) {
         String sql = "SELECT user_id, username, password_hash, email, role, created_at FROM pharmacy.app_user WHERE user_id = ?";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, userId);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        throw new NotFoundException("User not found");
+        return jdbc.query(sql, JdbcUserDao::mapRow, userId).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("User not found"));
     }
 
     @Override
     public User getByUsername(String username) {
         String sql = "SELECT user_id, username, password_hash, email, role, created_at FROM pharmacy.app_user WHERE username = ?";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, username);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        return null;
+        return jdbc.query(sql, JdbcUserDao::mapRow, username).stream().findFirst().orElse(null);
     }
 
     @Override
     public User getByEmail(String email) {
         String sql = "SELECT user_id, username, password_hash, email, role, created_at FROM pharmacy.app_user WHERE email = ?";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, email);
-        if (rs.next()) {
-            return mapRow(rs);
-        }
-        return null;
+        return jdbc.query(sql, JdbcUserDao::mapRow, email).stream().findFirst().orElse(null);
     }
 
     @Override
     public List<User> getAllUsers() {
         String sql = "SELECT user_id, username, password_hash, email, role, created_at FROM pharmacy.app_user ORDER BY username";
-        SqlRowSet rs = jdbc.queryForRowSet(sql);
-        List<User> users = new ArrayList<>();
-        while (rs.next()) {
-            users.add(mapRow(rs));
-        }
-        return users;
+        return jdbc.query(sql, JdbcUserDao::mapRow);
     }
 
     @Override
@@ -77,38 +68,49 @@ public class JdbcUserDao implements UserDao {
         return getAllUsers();
     }
 
+    @Override
+    public void streamAll(Consumer<? super User> visitor) {
+        String sql = "SELECT user_id, username, password_hash, email, role, created_at FROM pharmacy.app_user ORDER BY username";
+        streamer.stream(sql, JdbcUserDao::mapRow, visitor);
+    }
+
     @Override
     public User create(User user) {
         String sql = "INSERT INTO pharmacy.app_user (username, password_hash, email, role) " +
-                        "VALUES (?, ?, ?, ?::pharmacy.app_role) RETURNING user_id";
-        Long userId = jdbc.queryForObject(sql, Long.class,
+                        "VALUES (?, ?, ?, ?::pharmacy.app_role) " +
+                        "RETURNING user_id, username, password_hash, email, role, created_at";
+        User created = DaoSupport.insertReturning(jdbc, sql, JdbcUserDao::mapRow,
                 user.getUsername(),
                 user.getPasswordHash(),
                 user.getEmail(),
                 user.getRole().name()
         );
-        user.setUserId(userId);
-        return getById(user.getUserId());
+        events.publishEvent(new UserChangedEvent(created.getUserId(), created.getUsername()));
+        return created;
     }
 
     @Override
     public User update(User user) {
         String sql = "UPDATE pharmacy.app_user SET username = ?, password_hash = ?, email = ?, " +
                         "role = ?::pharmacy.app_role " +
-                        "WHERE user_id = ?";
-        jdbc.update(sql,
+                        "WHERE user_id = ? " +
+                        "RETURNING user_id, username, password_hash, email, role, created_at";
+        User updated = DaoSupport.updateReturning(jdbc, sql, JdbcUserDao::mapRow, "User not found",
                 user.getUsername(),
                 user.getPasswordHash(),
                 user.getEmail(),
                 user.getRole().name(),
                 user.getUserId());
-        return getById(user.getUserId());
+        events.publishEvent(new UserChangedEvent(updated.getUserId(), updated.getUsername()));
+        return updated;
     }
 
     @Override
     public void delete(long userId) {
         String sql = "DELETE FROM pharmacy.app_user WHERE user_id = ?";
-        jdbc.update(sql, userId);
+        if (jdbc.update(sql, userId) > 0) {
+            events.publishEvent(new UserChangedEvent(userId, null));
+        }
     }
 
     @Override
@@ -5,11 +5,11 @@ import com.pharmacy.model.ContactInfo;
 import com.pharmacy.model.VaccineAppointment;
 import com.pharmacy.model.enums.AppointmentStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 @Repository
@@ -18,7 +18,7 @@ public class JdbcVaccineAppointmentDao implements VaccineAppointmentDao {
     private final JdbcTemplate jdbc;
     public JdbcVaccineAppointmentDao(JdbcTemplate jdbc){ this.jdbc = jdbc; }
 
-    private static VaccineAppointment mapRow(SqlRowSet rs){
+    private static VaccineAppointment mapRow(ResultSet rs, int rowNum) throws SQLException {
         VaccineAppointment v = new VaccineAppointment();
         v.setAppointmentId     (rs.getLong("appointment_id"));
         v.setPatientId         (rs.getLong("patient_id"));
@@ -52,19 +52,16 @@ public class JdbcVaccineAppointmentDao implements VaccineAppointmentDao {
     public VaccineAppointment getById(long appointmentId){
         String sql = "SELECT a.appointment_id, a.patient_id, a.vaccine_product_id, a.scheduled_at, a.status, a.notes " +
                 "FROM pharmacy.vaccine_appointment a WHERE a.appointment_id = ?";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, appointmentId);
-        if (rs.next()) return mapRow(rs);
-        throw new NotFoundException("Vaccine appointment not found: id=" + appointmentId);
+        return jdbc.query(sql, JdbcVaccineAppointmentDao::mapRow, appointmentId).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Vaccine appointment not found: id=" + appointmentId));
     }
 
     @Override
     public List<VaccineAppointment> listByPatient(long patientId){
         String sql = "SELECT a.appointment_id, a.patient_id, a.vaccine_product_id, a.scheduled_at, a.status, a.notes " +
                 "FROM pharmacy.vaccine_appointment a WHERE a.patient_id = ? ORDER BY a.scheduled_at DESC";
-        SqlRowSet rs = jdbc.queryForRowSet(sql, patientId);
-        List<VaccineAppointment> list = new ArrayList<>();
-        while (rs.next()) list.add(mapRow(rs));
-        return list;
+        return jdbc.query(sql, JdbcVaccineAppointmentDao::mapRow, patientId);
     }
 
     @Override
@@ -98,8 +95,9 @@ public class JdbcVaccineAppointmentDao implements VaccineAppointmentDao {
 
     @Override
     public VaccineAppointment updateStatus(long appointmentId, AppointmentStatus status){
-        int rows = jdbc.update("UPDATE pharmacy.vaccine_appointment SET status = ? WHERE appointment_id = ?", status.name(), appointmentId);
-        if (rows == 0) throw new NotFoundException("Vaccine appointment not found: id=" + appointmentId);
-        return getById(appointmentId);
+        String sql = "UPDATE pharmacy.vaccine_appointment AS a SET status = ? WHERE a.appointment_id = ? " +
+                "RETURNING a.appointment_id, a.patient_id, a.vaccine_product_id, a.scheduled_at, a.status, a.notes";
+        return DaoSupport.updateReturning(jdbc, sql, JdbcVaccineAppointmentDao::mapRow,
+                "Vaccine appointment not found: id=" + appointmentId, status.name(), appointmentId);
     }
 }
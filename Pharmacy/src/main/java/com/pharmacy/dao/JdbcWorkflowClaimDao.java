@@ -0,0 +1,130 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.exception.BadRequestException;
+import com.pharmacy.model.Prescription;
+import com.pharmacy.model.enums.WorkflowStage;
+import com.pharmacy.model.enums.WorkflowStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+public class JdbcWorkflowClaimDao implements WorkflowClaimDao {
+
+    /** Queue (pending) status of each claimable stage and the status a claimed row moves to. */
+    private record Queue(WorkflowStatus pending, WorkflowStatus inProgress) {}
+
+    private static final Map<WorkflowStage, Queue> QUEUES = new EnumMap<>(Map.of(
+            WorkflowStage.DATA_ENTRY, new Queue(WorkflowStatus.DATA_ENTRY_PENDING, WorkflowStatus.DATA_ENTRY_IN_PROGRESS),
+            WorkflowStage.DATA_REVIEW, new Queue(WorkflowStatus.DATA_REVIEW_PENDING, WorkflowStatus.DATA_REVIEW_IN_PROGRESS),
+            WorkflowStage.PRODUCT, new Queue(WorkflowStatus.PRODUCT_PENDING, WorkflowStatus.PRODUCT_IN_PROGRESS),
+            WorkflowStage.PRODUCT_REVIEW, new Queue(WorkflowStatus.PRODUCT_REVIEW_PENDING, WorkflowStatus.PRODUCT_REVIEW_IN_PROGRESS)));
+
+    // WorkQueueScheduler's order: its SLA deadline is entered_workflow_at plus a constant
+    private static final Comparator<Prescription> CLAIM_ORDER = Comparator
+            .comparing(Prescription::isPriority).reversed()
+            .thenComparing(Prescription::getEnteredWorkflowAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Prescription::getCurrentStageEnteredAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(Prescription::getPrescriptionId);
+
+    // Pending rows that already have an assignee are not in the queue, as in listQueued().
+    // SKIP LOCKED: rows another claim has locked are passed over rather than waited on. The
+    // statuses are literals, not parameters, so generic plans still match the partial index.
+    private static final String CLAIM_SQL = """
+        WITH next AS (
+            SELECT prescription_id FROM pharmacy.prescription
+            WHERE workflow_status = '%s' AND assigned_to_user_id IS NULL
+            ORDER BY priority DESC, entered_workflow_at, current_stage_entered_at, prescription_id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        )
+        UPDATE pharmacy.prescription p
+        SET workflow_status = '%s',
+            assigned_to_user_id = ?,
+            lease_expires_at = now() + make_interval(secs => ?)
+        FROM next
+        WHERE p.prescription_id = next.prescription_id
+        RETURNING p.*
+    """;
+
+    private static final String RELEASE_SQL = """
+        UPDATE pharmacy.prescription
+        SET workflow_status = CASE workflow_status %s END::pharmacy.workflow_status,
+            assigned_to_user_id = NULL,
+            lease_expires_at = NULL
+        WHERE lease_expires_at IS NOT NULL AND %s
+    """.formatted(releaseCases(), "%s");
+
+    private final JdbcTemplate jdbc;
+
+    public JdbcWorkflowClaimDao(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public List<Prescription> claim(WorkflowStage stage, String userId, int limit, Duration lease) {
+        Queue queue = QUEUES.get(stage);
+        if (queue == null) {
+            throw new BadRequestException("No work queue for stage " + stage);
+        }
+        List<Prescription> claimed = jdbc.query(CLAIM_SQL.formatted(queue.pending().name(), queue.inProgress().name()),
+                RowMappers.PRESCRIPTION.mapper(), limit, userId, seconds(lease));
+        // UPDATE ... RETURNING does not keep the CTE's order
+        claimed.sort(CLAIM_ORDER);
+        return claimed;
+    }
+
+    @Override
+    public boolean renew(long prescriptionId, String userId, Duration lease) {
+        return jdbc.update("""
+            UPDATE pharmacy.prescription SET lease_expires_at = now() + make_interval(secs => ?)
+            WHERE prescription_id = ? AND assigned_to_user_id = ? AND lease_expires_at IS NOT NULL
+        """, seconds(lease), prescriptionId, userId) > 0;
+    }
+
+    @Override
+    public boolean release(long prescriptionId, String userId) {
+        return jdbc.update(RELEASE_SQL.formatted("prescription_id = ? AND assigned_to_user_id = ?"),
+                prescriptionId, userId) > 0;
+    }
+
+    @Override
+    public int releaseExpired() {
+        return jdbc.update(RELEASE_SQL.formatted("lease_expires_at < now()"));
+    }
+
+    @Override
+    public List<QueuedPrescription> listQueued() {
+        String statuses = QUEUES.values().stream()
+                .map(q -> "'" + q.pending().name() + "'")
+                .collect(Collectors.joining(", "));
+        return jdbc.query("SELECT prescription_id, facility_id, current_stage, priority, entered_workflow_at, current_stage_entered_at " +
+                        "FROM pharmacy.prescription WHERE workflow_status IN (" + statuses + ") AND assigned_to_user_id IS NULL",
+                (rs, rowNum) -> new QueuedPrescription(
+                        rs.getLong("prescription_id"),
+                        rs.getLong("facility_id"),
+                        WorkflowStage.valueOf(rs.getString("current_stage")),
+                        rs.getBoolean("priority"),
+                        rs.getTimestamp("entered_workflow_at").toInstant(),
+                        rs.getTimestamp("current_stage_entered_at").toInstant()));
+    }
+
+    private static double seconds(Duration lease) {
+        return lease.toMillis() / 1000.0;
+    }
+
+    // WHEN 'DATA_ENTRY_IN_PROGRESS' THEN 'DATA_ENTRY_PENDING' ... ELSE workflow_status::text
+    private static String releaseCases() {
+        StringBuilder sql = new StringBuilder();
+        for (Queue q : QUEUES.values()) {
+            sql.append("WHEN '").append(q.inProgress().name()).append("' THEN '").append(q.pending().name()).append("' ");
+        }
+        return sql.append("ELSE workflow_status::text").toString();
+    }
+}
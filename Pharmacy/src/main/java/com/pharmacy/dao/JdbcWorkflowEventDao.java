@@ -0,0 +1,78 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.model.WorkflowEvent;
+import com.pharmacy.model.enums.WorkflowStage;
+import com.pharmacy.model.enums.WorkflowStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/** Reads what the V8/V11 triggers on pharmacy.prescription record; only compaction writes. */
+@Repository
+public class JdbcWorkflowEventDao implements WorkflowEventDao {
+
+    private final JdbcTemplate jdbc;
+
+    public JdbcWorkflowEventDao(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    private static WorkflowEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
+        WorkflowEvent e = new WorkflowEvent();
+        e.setEventId(rs.getLong("event_id"));
+        e.setPrescriptionId(rs.getLong("prescription_id"));
+        String fromStage = rs.getString("from_stage");
+        e.setFromStage(fromStage == null ? null : WorkflowStage.valueOf(fromStage));
+        String fromStatus = rs.getString("from_status");
+        e.setFromStatus(fromStatus == null ? null : WorkflowStatus.valueOf(fromStatus));
+        String toStage = rs.getString("to_stage");
+        e.setToStage(toStage == null ? null : WorkflowStage.valueOf(toStage));
+        String toStatus = rs.getString("to_status");
+        e.setToStatus(toStatus == null ? null : WorkflowStatus.valueOf(toStatus));
+        e.setAssignedToUserId(rs.getString("assigned_to_user_id"));
+        e.setToAssignedToUserId(rs.getString("to_assigned_to_user_id"));
+        e.setOccurredAt(RowMappers.offsetDateTime(rs, rs.findColumn("occurred_at")));
+        return e;
+    }
+
+    @Override
+    public List<WorkflowEvent> listByPrescription(long prescriptionId) {
+        return jdbc.query("SELECT * FROM pharmacy.prescription_workflow_event WHERE prescription_id = ? ORDER BY event_id",
+                JdbcWorkflowEventDao::mapRow, prescriptionId);
+    }
+
+    // sums the deltas of each stage and status
+    @Override
+    public List<WorkflowStatusCount> statusCounts() {
+        return jdbc.query("""
+            SELECT current_stage, workflow_status, sum(delta) AS count
+            FROM pharmacy.workflow_status_delta
+            GROUP BY current_stage, workflow_status
+            HAVING sum(delta) > 0
+            ORDER BY current_stage, workflow_status
+        """, (rs, rowNum) -> new WorkflowStatusCount(
+                WorkflowStage.valueOf(rs.getString("current_stage")),
+                WorkflowStatus.valueOf(rs.getString("workflow_status")),
+                rs.getLong("count")));
+    }
+
+    // deletes the deltas visible now and inserts their sums in the same statement; rows inserted
+    // meanwhile are not seen, and a concurrent compaction skips the rows this one deleted
+    @Override
+    public int compactStatusCounts() {
+        return jdbc.update("""
+            WITH folded AS (
+                DELETE FROM pharmacy.workflow_status_delta
+                RETURNING current_stage, workflow_status, delta
+            )
+            INSERT INTO pharmacy.workflow_status_delta (current_stage, workflow_status, delta)
+            SELECT current_stage, workflow_status, sum(delta)
+            FROM folded
+            GROUP BY current_stage, workflow_status
+            HAVING sum(delta) <> 0
+        """);
+    }
+}
@@ -0,0 +1,97 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.dto.PageDto;
+import com.pharmacy.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque cursor tokens for keyset pagination. A token carries the sort-key values of the
+ * last row on a page; the next page is read with a row-value comparison against them,
+ * so every page costs an index seek no matter how deep the client has paged.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String SEPARATOR = "\u001f";
+
+    private final String[] keys;
+
+    private KeysetCursor(String[] keys) {
+        this.keys = keys;
+    }
+
+    public static String encode(Object... keys) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) sb.append(SEPARATOR);
+            sb.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns null for a missing token (first page).
+     */
+    public static KeysetCursor decode(String token, int parts) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] keys = raw.split(SEPARATOR, -1);
+            if (keys.length != parts) {
+                throw new BadRequestException("Invalid page cursor");
+            }
+            return new KeysetCursor(keys);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid page cursor", e);
+        }
+    }
+
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Builds a page from a query that fetched {@code size + 1} rows; the extra row only
+     * signals that another page exists.
+     */
+    public static <T> PageDto<T> toPage(List<T> rows, int size, Function<? super T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new PageDto<>(rows, null, size);
+        }
+        List<T> items = rows.subList(0, size);
+        return new PageDto<>(items, cursorOf.apply(items.get(size - 1)), size);
+    }
+
+    public String getString(int index) {
+        return keys[index];
+    }
+
+    public long getLong(int index) {
+        try {
+            return Long.parseLong(keys[index]);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid page cursor", e);
+        }
+    }
+
+    public LocalDate getDate(int index) {
+        try {
+            return LocalDate.parse(keys[index]);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid page cursor", e);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.pharmacy.dao;
 import com.pharmacy.model.Medication;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface MedicationDao {
 
@@ -14,6 +16,11 @@ public interface MedicationDao {
 
     List<Medication> listAll();
 
+    /** NDC to medication_id for every product linked to a medication. */
+    Map<String, Long> medicationIdsByNdc();
+
+    void streamAll(Consumer<? super Medication> visitor);
+
     Medication create(Medication med);
 
     Medication update(Medication med);
@@ -1,19 +1,38 @@
 package com.pharmacy.dao;
 
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.model.Patient;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface PatientDao {
 
     Patient getById(long patientId);
 
+    Optional<Patient> findById(long patientId);
+
     List<Patient> listAll();
 
-    Patient findByPhoneDigits(String phoneDigits);
+    void streamAll(Consumer<? super Patient> visitor);
+
+    /** Every patient sharing the number (families often do), in name order. */
+    List<Patient> findAllByPhoneDigits(String phoneDigits);
+
+    List<Patient> listByIds(Collection<Long> patientIds);
+
+    /** patient_id to phone_digits for every patient with a phone number. */
+    Map<Long, String> phoneDigitsById();
 
     List<Patient> searchByName(String namePart);
 
+    PageDto<Patient> listPage(String cursor, int size);
+
+    PageDto<Patient> searchByNamePage(String namePart, String cursor, int size);
+
     Patient create(Patient p);
 
     Patient update(Patient p);
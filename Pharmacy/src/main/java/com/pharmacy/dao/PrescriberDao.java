@@ -1,19 +1,32 @@
 package com.pharmacy.dao;
 
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.model.Prescriber;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface PrescriberDao {
 
     Prescriber getById(long prescriberId);
 
+    Optional<Prescriber> findById(long prescriberId);
+
     List<Prescriber> listAll();
 
+    void streamAll(Consumer<? super Prescriber> visitor);
+
     Prescriber getByNpi(String npi);
 
+    Optional<Prescriber> findByNpi(String npi);
+
     List<Prescriber> searchByName(String namePart);
 
+    PageDto<Prescriber> listPage(String cursor, int size);
+
+    PageDto<Prescriber> searchByNamePage(String namePart, String cursor, int size);
+
     Prescriber create(Prescriber p);
 
     Prescriber update(Prescriber p);
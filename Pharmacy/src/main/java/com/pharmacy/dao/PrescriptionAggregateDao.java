@@ -0,0 +1,14 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.dto.PrescriptionAggregateDto;
+
+import java.util.List;
+
+public interface PrescriptionAggregateDao {
+
+    PrescriptionAggregateDto getById(long prescriptionId);
+
+    /** Aggregates for the given ids in request order; unknown ids are skipped. */
+    List<PrescriptionAggregateDto> listByIds(List<Long> prescriptionIds);
+
+}
@@ -1,18 +1,31 @@
 package com.pharmacy.dao;
 
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.model.Prescription;
 import com.pharmacy.model.enums.RxStatus;
+import com.pharmacy.model.enums.WorkflowStatus;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface PrescriptionDao {
 
     Prescription getById(long prescriptionId);
 
+    Optional<Prescription> findById(long prescriptionId);
+
     List<Prescription> listByPatient(long patientId);
 
     List<Prescription> listByPrescriber(long prescriberId);
 
+    void streamAll(Consumer<? super Prescription> visitor);
+
+    PageDto<Prescription> listByPatientPage(long patientId, String cursor, int size);
+
+    PageDto<Prescription> listByPrescriberPage(long prescriberId, String cursor, int size);
+
     List<Prescription> listByPatientAndStatus(long patientId, RxStatus status);
 
     Prescription create(Prescription rx);
@@ -21,6 +34,13 @@ public interface PrescriptionDao {
 
     Prescription updatePrescriber(long prescriptionId, long prescriberId);
 
+    /**
+     * Moves every listed prescription whose current workflow status is in {@code from} to
+     * {@code to} in one statement, entering the target's stage and clearing any work queue lease.
+     * Results follow the order of {@code prescriptionIds}, one per distinct id.
+     */
+    List<TransitionResult> transitionAll(long[] prescriptionIds, WorkflowStatus to, Set<WorkflowStatus> from);
+
     boolean deleteById(long prescriptionId);
 
 }
@@ -12,6 +12,8 @@ public interface PrescriptionItemDao {
 
     PrescriptionItem create(PrescriptionItem item);
 
+    List<PrescriptionItem> createAll(List<PrescriptionItem> items);
+
     PrescriptionItem update(PrescriptionItem item);
 
     boolean deleteById(long prescriptionItemId);
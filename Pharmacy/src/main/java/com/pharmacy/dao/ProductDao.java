@@ -1,18 +1,27 @@
 package com.pharmacy.dao;
 
+import com.pharmacy.dto.PageDto;
 import com.pharmacy.model.Product;
 import com.pharmacy.model.enums.ProductStatus;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductDao {
 
     Product getById(long productId);
 
+    Optional<Product> findById(long productId);
+
     List<Product> listAll();
 
+    void streamAll(Consumer<? super Product> visitor);
+
     Product create(Product product);
 
+    List<Product> createAll(List<Product> products);
+
     Product update(Product product);
 
     boolean delete(long productId);
@@ -21,6 +30,10 @@ public interface ProductDao {
 
     List<Product> findByName(String name);
 
+    PageDto<Product> listPage(String cursor, int size);
+
+    PageDto<Product> findByNamePage(String name, String cursor, int size);
+
     List<Product> findByPrescriptionId(long prescriptionId);
 
     List<Product> findByStatus(ProductStatus status);
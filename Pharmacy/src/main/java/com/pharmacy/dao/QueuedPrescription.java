@@ -0,0 +1,9 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.model.enums.WorkflowStage;
+
+import java.time.Instant;
+
+/** An unassigned prescription waiting in a stage's work queue, with what queue order needs. */
+public record QueuedPrescription(long prescriptionId, long facilityId, WorkflowStage stage, boolean priority,
+                                 Instant enteredWorkflowAt, Instant stageEnteredAt) {}
@@ -0,0 +1,257 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.model.ContactInfo;
+import com.pharmacy.model.Fulfillment;
+import com.pharmacy.model.Patient;
+import com.pharmacy.model.Prescriber;
+import com.pharmacy.model.Prescription;
+import com.pharmacy.model.Product;
+import com.pharmacy.model.enums.FulfillmentStatus;
+import com.pharmacy.model.enums.RxStatus;
+import com.pharmacy.model.enums.Sex;
+import com.pharmacy.model.enums.WorkflowStage;
+import com.pharmacy.model.enums.WorkflowStatus;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared registry of index-based row mappers, one per entity.
+ * Column positions are resolved from the result set metadata once per query shape
+ * (the list of selected columns) and reused for every row after that, so mapping a row
+ * never looks a column up by name.
+ */
+public final class RowMappers {
+
+    private static final ZoneRules ZONE_RULES = ZoneId.systemDefault().getRules();
+    private static final ZoneOffset FIXED_OFFSET = ZONE_RULES.isFixedOffset() ? ZONE_RULES.getOffset(Instant.EPOCH) : null;
+
+    public static final Mapping<Product> PRODUCT = new Mapping<>(RowMappers::product,
+            "product_id", "ndc", "name", "generic_name", "manufacturer", "dosage_form", "strength",
+            "is_rx", "is_vaccine", "unit_price", "stock_qty", "medication_id", "created_at", "updated_at");
+
+    public static final Mapping<Fulfillment> FULFILLMENT = new Mapping<>(RowMappers::fulfillment,
+            "fulfillment_id", "prescription_id", "product_id", "lot_id", "quantity_dispensed", "filled_at",
+            "filled_by_user_id", "verified_by_pharmacist_id", "status");
+
+    public static final Mapping<Prescription> PRESCRIPTION = new Mapping<>(RowMappers::prescription,
+            "prescription_id", "rx_number", "patient_id", "prescriber_id", "facility_id", "date_written", "status",
+            "current_stage", "workflow_status", "entered_workflow_at", "current_stage_entered_at",
+            "assigned_to_user_id", "notes", "priority", "completed_at", "lease_expires_at");
+
+    public static final Mapping<Patient> PATIENT = new Mapping<>(RowMappers::patient,
+            "patient_id", "first_name", "last_name", "address", "city", "state", "zip_code", "phone", "email",
+            "date_of_birth", "sex");
+
+    public static final Mapping<Prescriber> PRESCRIBER = new Mapping<>(RowMappers::prescriber,
+            "prescriber_id", "npi", "first_name", "last_name", "address", "city", "state", "zip_code", "phone", "email");
+
+    private RowMappers() {}
+
+    @FunctionalInterface
+    interface Binder<T> {
+        T map(ResultSet rs, int[] col) throws SQLException;
+    }
+
+    /**
+     * Column layout of one entity. {@link #mapper()} hands out a cheap per-query mapper that
+     * binds to the column positions of the first row it sees.
+     */
+    public static final class Mapping<T> {
+
+        private final String[] columns;
+        private final Binder<T> binder;
+        private final Map<String, int[]> shapes = new ConcurrentHashMap<>();
+
+        Mapping(Binder<T> binder, String... columns) {
+            this.binder = binder;
+            this.columns = columns;
+        }
+
+        public RowMapper<T> mapper() {
+            return new RowMapper<>() {
+                private int[] col;
+
+                @Override
+                public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+                    if (col == null) {
+                        col = indexesFor(rs.getMetaData());
+                    }
+                    return binder.map(rs, col);
+                }
+            };
+        }
+
+        int[] indexesFor(ResultSetMetaData md) throws SQLException {
+            int count = md.getColumnCount();
+            String[] labels = new String[count];
+            for (int i = 0; i < count; i++) {
+                labels[i] = md.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+            }
+            return shapes.computeIfAbsent(String.join(",", labels), shape -> resolve(labels));
+        }
+
+        // 0 marks a column the query did not select; the getters below treat it as SQL NULL
+        private int[] resolve(String[] labels) {
+            int[] col = new int[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                for (int i = 0; i < labels.length; i++) {
+                    if (labels[i].equals(columns[c])) {
+                        col[c] = i + 1;
+                        break;
+                    }
+                }
+            }
+            return col;
+        }
+    }
+
+    private static Product product(ResultSet rs, int[] c) throws SQLException {
+        Product p = new Product();
+        p.setProductId(rs.getLong(c[0]));
+        p.setNdc(string(rs, c[1]));
+        p.setName(string(rs, c[2]));
+        p.setGenericName(string(rs, c[3]));
+        p.setManufacturer(string(rs, c[4]));
+        p.setDosageForm(string(rs, c[5]));
+        p.setStrength(string(rs, c[6]));
+        p.setRx(c[7] != 0 && rs.getBoolean(c[7]));
+        p.setVaccine(c[8] != 0 && rs.getBoolean(c[8]));
+        p.setUnitPrice(c[9] != 0 ? rs.getDouble(c[9]) : 0);
+        p.setStockQty(c[10] != 0 ? rs.getInt(c[10]) : 0);
+        p.setMedicationId(nullableLong(rs, c[11]));
+        p.setCreatedAt(offsetDateTime(rs, c[12]));
+        p.setUpdatedAt(offsetDateTime(rs, c[13]));
+        return p;
+    }
+
+    private static Fulfillment fulfillment(ResultSet rs, int[] c) throws SQLException {
+        Fulfillment f = new Fulfillment();
+        f.setFulfillmentId(rs.getLong(c[0]));
+        f.setPrescriptionId(rs.getLong(c[1]));
+        f.setProductId(nullableLong(rs, c[2]));
+        f.setLotId(nullableLong(rs, c[3]));
+        f.setQuantityDispensed(rs.getInt(c[4]));
+        f.setFilledAt(offsetDateTime(rs, c[5]));
+        f.setFilledByUserId(nullableLong(rs, c[6]));
+        f.setVerifiedByPharmacistId(nullableLong(rs, c[7]));
+        String status = string(rs, c[8]);
+        if (status != null) {
+            f.setStatus(FulfillmentStatus.valueOf(status));
+        }
+        return f;
+    }
+
+    private static Prescription prescription(ResultSet rs, int[] c) throws SQLException {
+        Prescription p = new Prescription();
+        p.setPrescriptionId(rs.getLong(c[0]));
+        p.setRxNumber(string(rs, c[1]));
+        p.setPatientId(rs.getLong(c[2]));
+        p.setPrescriberId(rs.getLong(c[3]));
+        p.setFacilityId(rs.getLong(c[4]));
+        p.setDateWritten(localDate(rs, c[5]));
+        p.setStatus(RxStatus.valueOf(rs.getString(c[6])));
+
+        String stage = string(rs, c[7]);
+        if (stage != null) {
+            p.setCurrentStage(WorkflowStage.valueOf(stage));
+        }
+        String workflowStatus = string(rs, c[8]);
+        if (workflowStatus != null) {
+            p.setWorkflowStatus(WorkflowStatus.valueOf(workflowStatus));
+        }
+        LocalDateTime enteredAt = localDateTime(rs, c[9]);
+        if (enteredAt != null) {
+            p.setEnteredWorkflowAt(enteredAt);
+        }
+        // after setCurrentStage/setWorkflowStatus, which stamp "now"
+        LocalDateTime stageEnteredAt = localDateTime(rs, c[10]);
+        if (stageEnteredAt != null) {
+            p.setCurrentStageEnteredAt(stageEnteredAt);
+        }
+        p.setAssignedToUserId(string(rs, c[11]));
+        p.setNotes(string(rs, c[12]));
+        p.setPriority(c[13] != 0 && rs.getBoolean(c[13]));
+        p.setCompletedAt(localDateTime(rs, c[14]));
+        p.setLeaseExpiresAt(localDateTime(rs, c[15]));
+        return p;
+    }
+
+    private static Patient patient(ResultSet rs, int[] c) throws SQLException {
+        Patient p = new Patient();
+        p.setPatientId(rs.getLong(c[0]));
+        p.setContact(contact(rs, c[1], c[2], c[3], c[4], c[5], c[6], c[7], c[8]));
+        p.setDateOfBirth(localDate(rs, c[9]));
+        String sex = string(rs, c[10]);
+        if (sex != null) {
+            p.setSex(Sex.valueOf(sex));
+        }
+        return p;
+    }
+
+    private static Prescriber prescriber(ResultSet rs, int[] c) throws SQLException {
+        Prescriber p = new Prescriber();
+        p.setPrescriberId(rs.getLong(c[0]));
+        p.setNpi(string(rs, c[1]));
+        p.setContact(contact(rs, c[2], c[3], c[4], c[5], c[6], c[7], c[8], c[9]));
+        return p;
+    }
+
+    private static ContactInfo contact(ResultSet rs, int first, int last, int address, int city, int state,
+                                       int zip, int phone, int email) throws SQLException {
+        return new ContactInfo(
+                string(rs, first),
+                string(rs, last),
+                string(rs, address),
+                string(rs, city),
+                string(rs, state),
+                string(rs, zip),
+                string(rs, phone),
+                string(rs, email));
+    }
+
+    private static String string(ResultSet rs, int col) throws SQLException {
+        return col == 0 ? null : rs.getString(col);
+    }
+
+    private static Long nullableLong(ResultSet rs, int col) throws SQLException {
+        if (col == 0) {
+            return null;
+        }
+        long v = rs.getLong(col);
+        return rs.wasNull() ? null : v;
+    }
+
+    private static LocalDate localDate(ResultSet rs, int col) throws SQLException {
+        Date d = col == 0 ? null : rs.getDate(col);
+        return d != null ? d.toLocalDate() : null;
+    }
+
+    private static LocalDateTime localDateTime(ResultSet rs, int col) throws SQLException {
+        Timestamp ts = col == 0 ? null : rs.getTimestamp(col);
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+
+    static OffsetDateTime offsetDateTime(ResultSet rs, int col) throws SQLException {
+        Timestamp ts = col == 0 ? null : rs.getTimestamp(col);
+        if (ts == null) {
+            return null;
+        }
+        Instant instant = ts.toInstant();
+        return instant.atOffset(FIXED_OFFSET != null ? FIXED_OFFSET : ZONE_RULES.getOffset(instant));
+    }
+}
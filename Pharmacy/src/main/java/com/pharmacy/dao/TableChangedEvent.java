@@ -0,0 +1,22 @@
+package com.pharmacy.dao;
+
+/**
+ * A row of {@code table} was inserted, updated or deleted, possibly by another app instance.
+ * {@code id} is null when the whole table must be treated as changed (TRUNCATE), and
+ * {@code table} is null after the notification connection was re-established, when changes
+ * may have been missed and every cache should resync.
+ */
+public record TableChangedEvent(String table, Long id) {
+
+    public static TableChangedEvent resyncAll() {
+        return new TableChangedEvent(null, null);
+    }
+
+    public boolean affects(String tableName) {
+        return table == null || table.equals(tableName);
+    }
+
+    public boolean isWholeTable() {
+        return id == null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.model.enums.WorkflowStatus;
+
+/**
+ * Outcome of moving one prescription to a new workflow status. {@code previousStatus} is the
+ * status it had when the transition was attempted, null when the prescription does not exist.
+ */
+public record TransitionResult(long prescriptionId, WorkflowStatus previousStatus, Outcome outcome) {
+
+    public enum Outcome {
+        APPLIED,
+        INVALID_TRANSITION,
+        NOT_FOUND
+    }
+}
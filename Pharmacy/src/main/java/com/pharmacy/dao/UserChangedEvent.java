@@ -0,0 +1,7 @@
+package com.pharmacy.dao;
+
+/**
+ * Published after an app_user row is created, updated or deleted, so anything caching
+ * user details can drop its copy.
+ */
+public record UserChangedEvent(long userId, String username) {}
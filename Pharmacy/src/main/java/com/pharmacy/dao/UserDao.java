@@ -3,6 +3,7 @@ package com.pharmacy.dao;
 import com.pharmacy.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserDao {
 
@@ -14,6 +15,8 @@ public interface UserDao {
 
     List<User> listAll();
 
+    void streamAll(Consumer<? super User> visitor);
+
     User create(User user);
 
     User update(User user);
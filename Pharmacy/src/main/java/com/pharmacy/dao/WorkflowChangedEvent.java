@@ -0,0 +1,34 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.model.enums.WorkflowStage;
+import com.pharmacy.model.enums.WorkflowStatus;
+
+import java.time.Instant;
+
+/**
+ * A prescription entered the workflow, changed stage, status, assignee or priority, or was
+ * deleted, possibly on another app instance. The other fields are as of after the change, or
+ * before it for a deletion.
+ */
+public record WorkflowChangedEvent(long prescriptionId, long facilityId, WorkflowStage stage, WorkflowStatus status,
+                                   boolean priority, Instant enteredWorkflowAt, Instant stageEnteredAt,
+                                   String assignedToUserId, boolean deleted) {
+
+    /** Parses a pharmacy_workflow notification (see V10__workflow_notify_schedule.sql). */
+    public static WorkflowChangedEvent fromPayload(String payload) {
+        String[] parts = payload.split(":", 9);
+        if (parts.length < 9) {
+            throw new IllegalArgumentException("Malformed workflow notification '" + payload + "'");
+        }
+        return new WorkflowChangedEvent(
+                Long.parseLong(parts[1]),
+                Long.parseLong(parts[2]),
+                WorkflowStage.valueOf(parts[3]),
+                WorkflowStatus.valueOf(parts[4]),
+                "t".equals(parts[5]),
+                Instant.ofEpochMilli(Long.parseLong(parts[6])),
+                Instant.ofEpochMilli(Long.parseLong(parts[7])),
+                parts[8].isEmpty() ? null : parts[8],
+                "DELETE".equals(parts[0]));
+    }
+}
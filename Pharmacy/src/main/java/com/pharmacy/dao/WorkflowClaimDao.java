@@ -0,0 +1,34 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.model.Prescription;
+import com.pharmacy.model.enums.WorkflowStage;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Leases work queue prescriptions to users. Concurrent claims for the same stage skip the rows
+ * other claims have locked instead of waiting on them, so no two users get the same
+ * prescription.
+ */
+public interface WorkflowClaimDao {
+
+    /**
+     * Leases up to {@code limit} pending prescriptions of {@code stage} to {@code userId}, priority
+     * ones first and then oldest in the stage, moving them to the stage's in-progress status.
+     * Throws BadRequestException for a stage without a claimable queue.
+     */
+    List<Prescription> claim(WorkflowStage stage, String userId, int limit, Duration lease);
+
+    /** Extends the caller's lease; false when it is no longer the caller's. */
+    boolean renew(long prescriptionId, String userId, Duration lease);
+
+    /** Returns a leased prescription to its queue; false when it is not leased to the caller. */
+    boolean release(long prescriptionId, String userId);
+
+    /** Returns every prescription whose lease has run out to its queue; the number returned. */
+    int releaseExpired();
+
+    /** Every unassigned prescription in a work queue. */
+    List<QueuedPrescription> listQueued();
+}
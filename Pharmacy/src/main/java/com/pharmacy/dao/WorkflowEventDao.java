@@ -0,0 +1,17 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.model.WorkflowEvent;
+
+import java.util.List;
+
+public interface WorkflowEventDao {
+
+    /** The prescription's workflow history, oldest first. */
+    List<WorkflowEvent> listByPrescription(long prescriptionId);
+
+    /** Current prescription counts per stage and status, leaving out empty ones. */
+    List<WorkflowStatusCount> statusCounts();
+
+    /** Folds the recorded count deltas into one row per stage and status; returns the rows written. */
+    int compactStatusCounts();
+}
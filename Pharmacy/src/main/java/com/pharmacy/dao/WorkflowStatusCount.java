@@ -0,0 +1,7 @@
+package com.pharmacy.dao;
+
+import com.pharmacy.model.enums.WorkflowStage;
+import com.pharmacy.model.enums.WorkflowStatus;
+
+/** Number of prescriptions currently in one stage and status. */
+public record WorkflowStatusCount(WorkflowStage stage, WorkflowStatus status, long count) {}
@@ -0,0 +1,32 @@
+package com.pharmacy.dto;
+
+import java.util.List;
+
+public class PageDto<T> {
+
+    private List<T> items;
+    private String nextCursor;
+    private int size;
+
+    public PageDto() {}
+
+    public PageDto(List<T> items, String nextCursor, int size) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.size = size;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public int getSize() { return size; }
+
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,50 @@
+package com.pharmacy.dto;
+
+import com.pharmacy.model.Fulfillment;
+import com.pharmacy.model.Patient;
+import com.pharmacy.model.Prescriber;
+import com.pharmacy.model.Prescription;
+import com.pharmacy.model.PrescriptionItem;
+import com.pharmacy.model.Product;
+
+import java.util.List;
+
+/**
+ * A prescription together with everything needed to render it: patient, prescriber,
+ * line items, fulfillments and the products dispensed.
+ */
+public class PrescriptionAggregateDto {
+
+    private Prescription prescription;
+    private Patient patient;
+    private Prescriber prescriber;
+    private List<PrescriptionItem> items;
+    private List<Fulfillment> fulfillments;
+    private List<Product> products;
+
+    public PrescriptionAggregateDto() {}
+
+    public Prescription getPrescription() { return prescription; }
+
+    public void setPrescription(Prescription prescription) { this.prescription = prescription; }
+
+    public Patient getPatient() { return patient; }
+
+    public void setPatient(Patient patient) { this.patient = patient; }
+
+    public Prescriber getPrescriber() { return prescriber; }
+
+    public void setPrescriber(Prescriber prescriber) { this.prescriber = prescriber; }
+
+    public List<PrescriptionItem> getItems() { return items; }
+
+    public void setItems(List<PrescriptionItem> items) { this.items = items; }
+
+    public List<Fulfillment> getFulfillments() { return fulfillments; }
+
+    public void setFulfillments(List<Fulfillment> fulfillments) { this.fulfillments = fulfillments; }
+
+    public List<Product> getProducts() { return products; }
+
+    public void setProducts(List<Product> products) { this.products = products; }
+}
@@ -1,8 +1,16 @@
 package com.pharmacy.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Signals a missing row. It carries no stack trace: misses are expected on lookup paths,
+ * and the message says everything the 404 needs.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
 public class NotFoundException extends RuntimeException {
 
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -1,14 +1,19 @@
 package com.pharmacy.model;
 
 import com.pharmacy.model.enums.FulfillmentStatus;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import java.time.OffsetDateTime;
 import java.util.Objects;
 
 public class Fulfillment {
     private long fulfillmentId;
     private long prescriptionId;
+    @Positive
     private Long productId;
+    @Positive
     private Long lotId;
+    @PositiveOrZero
     private int quantityDispensed;
     private OffsetDateTime filledAt;
     private Long filledByUserId;
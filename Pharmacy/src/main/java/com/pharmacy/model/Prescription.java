@@ -27,6 +27,7 @@ public class Prescription {
     private String notes;
     private boolean priority;
     private LocalDateTime completedAt;
+    private LocalDateTime leaseExpiresAt;
 
     public Prescription() {
         this.dateWritten = LocalDate.now();
@@ -177,6 +178,14 @@ public class Prescription {
         this.completedAt = completedAt;
     }
 
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
@@ -1,6 +1,8 @@
 package com.pharmacy.model;
 
 import com.pharmacy.model.enums.DawCode;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 import java.math.BigDecimal;
 import java.util.Objects;
@@ -9,12 +11,15 @@ public class PrescriptionItem {
 
     private long itemId;
     private long prescriptionId;
+    @Positive
     private long medicationId;
     private String strength;
     private String dose;
+    @Positive
     private BigDecimal quantity;
     private String sig;
     private DawCode daw;
+    @PositiveOrZero
     private int refills;
 
     public PrescriptionItem() {}
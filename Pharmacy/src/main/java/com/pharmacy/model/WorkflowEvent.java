@@ -0,0 +1,110 @@
+package com.pharmacy.model;
+
+import com.pharmacy.model.enums.WorkflowStage;
+import com.pharmacy.model.enums.WorkflowStatus;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One change of a prescription's workflow stage or status. The from fields are null for the
+ * prescription's creation, the to fields for its deletion. assignedToUserId is who held the
+ * prescription when it changed, toAssignedToUserId who holds it afterwards; the latter is
+ * null for events recorded before V11.
+ */
+public class WorkflowEvent {
+
+    private long eventId;
+    private long prescriptionId;
+    private WorkflowStage fromStage;
+    private WorkflowStatus fromStatus;
+    private WorkflowStage toStage;
+    private WorkflowStatus toStatus;
+    private String assignedToUserId;
+    private String toAssignedToUserId;
+    private OffsetDateTime occurredAt;
+
+    public WorkflowEvent() {}
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(long eventId) {
+        this.eventId = eventId;
+    }
+
+    public long getPrescriptionId() {
+        return prescriptionId;
+    }
+
+    public void setPrescriptionId(long prescriptionId) {
+        this.prescriptionId = prescriptionId;
+    }
+
+    public WorkflowStage getFromStage() {
+        return fromStage;
+    }
+
+    public void setFromStage(WorkflowStage fromStage) {
+        this.fromStage = fromStage;
+    }
+
+    public WorkflowStatus getFromStatus() {
+        return fromStatus;
+    }
+
+    public void setFromStatus(WorkflowStatus fromStatus) {
+        this.fromStatus = fromStatus;
+    }
+
+    public WorkflowStage getToStage() {
+        return toStage;
+    }
+
+    public void setToStage(WorkflowStage toStage) {
+        this.toStage = toStage;
+    }
+
+    public WorkflowStatus getToStatus() {
+        return toStatus;
+    }
+
+    public void setToStatus(WorkflowStatus toStatus) {
+        this.toStatus = toStatus;
+    }
+
+    public String getAssignedToUserId() {
+        return assignedToUserId;
+    }
+
+    public void setAssignedToUserId(String assignedToUserId) {
+        this.assignedToUserId = assignedToUserId;
+    }
+
+    public String getToAssignedToUserId() {
+        return toAssignedToUserId;
+    }
+
+    public void setToAssignedToUserId(String toAssignedToUserId) {
+        this.toAssignedToUserId = toAssignedToUserId;
+    }
+
+    public OffsetDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(OffsetDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkflowEvent{" +
+                "eventId=" + eventId +
+                ", prescriptionId=" + prescriptionId +
+                ", fromStatus=" + fromStatus +
+                ", toStatus=" + toStatus +
+                ", occurredAt=" + occurredAt +
+                '}';
+    }
+}
@@ -1,5 +1,8 @@
 package com.pharmacy.model.enums;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+
 /**
  * Represents the status of a prescription within its current workflow stage.
  * Different statuses are available depending on the current stage.
@@ -58,34 +61,46 @@ public enum WorkflowStatus {
      * Check if this status can transition to another status
      */
     public boolean canTransitionTo(WorkflowStatus targetStatus) {
-        // Define valid transitions based on workflow rules
-        switch (this) {
-            case DATA_ENTRY_COMPLETED:
-                return targetStatus == DATA_REVIEW_PENDING;
-
-            case DATA_REVIEW_APPROVED:
-                return targetStatus == PRODUCT_PENDING;
-
-            case DATA_REVIEW_REJECTED:
-                return targetStatus == DATA_ENTRY_PENDING;
-
-            case PRODUCT_FULFILLED:
-                return targetStatus == PRODUCT_REVIEW_PENDING;
-
-            case PRODUCT_REVIEW_APPROVED:
-                return targetStatus == NOTIFICATIONS_PENDING;
+        return (Transitions.TARGETS[ordinal()] & (1L << targetStatus.ordinal())) != 0;
+    }
 
-            case PRODUCT_REVIEW_REJECTED:
-                return targetStatus == PRODUCT_PENDING;
+    /** True for the pending status of a stage with a work queue, from which prescriptions are claimed. */
+    public boolean isWorkQueue() {
+        return this == DATA_ENTRY_PENDING || this == DATA_REVIEW_PENDING
+                || this == PRODUCT_PENDING || this == PRODUCT_REVIEW_PENDING;
+    }
 
-            case NOTIFICATIONS_SENT:
-                return targetStatus == COMPLETED;
+    /** Every status that may transition to {@code targetStatus}. */
+    public static EnumSet<WorkflowStatus> sourcesOf(WorkflowStatus targetStatus) {
+        return Transitions.SOURCES.get(targetStatus).clone();
+    }
 
-            case NOTIFICATIONS_FAILED:
-                return targetStatus == NOTIFICATIONS_PENDING;
+    /**
+     * Valid transitions, compiled once into a bitmask of allowed targets per status (indexed by
+     * ordinal) and the inverse, the allowed sources per target.
+     */
+    private static final class Transitions {
+
+        static final long[] TARGETS = new long[values().length];
+        static final EnumMap<WorkflowStatus, EnumSet<WorkflowStatus>> SOURCES = new EnumMap<>(WorkflowStatus.class);
+
+        static {
+            for (WorkflowStatus s : values()) {
+                SOURCES.put(s, EnumSet.noneOf(WorkflowStatus.class));
+            }
+            allow(DATA_ENTRY_COMPLETED, DATA_REVIEW_PENDING);
+            allow(DATA_REVIEW_APPROVED, PRODUCT_PENDING);
+            allow(DATA_REVIEW_REJECTED, DATA_ENTRY_PENDING);
+            allow(PRODUCT_FULFILLED, PRODUCT_REVIEW_PENDING);
+            allow(PRODUCT_REVIEW_APPROVED, NOTIFICATIONS_PENDING);
+            allow(PRODUCT_REVIEW_REJECTED, PRODUCT_PENDING);
+            allow(NOTIFICATIONS_SENT, COMPLETED);
+            allow(NOTIFICATIONS_FAILED, NOTIFICATIONS_PENDING);
+        }
 
-            default:
-                return false;
+        private static void allow(WorkflowStatus from, WorkflowStatus to) {
+            TARGETS[from.ordinal()] |= 1L << to.ordinal();
+            SOURCES.get(to).add(from);
         }
     }
 }
@@ -0,0 +1,65 @@
+package com.pharmacy.security;
+
+import com.pharmacy.model.enums.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Security principal carrying the user id and role alongside the username, so they can be
+ * written into the JWT at login and read back from it on every request.
+ * The password hash is only present while authenticating a login.
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long userId;
+    private final String username;
+    private final String passwordHash;
+    private final Role role;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(long userId, String username, String passwordHash, Role role) {
+        this.userId = userId;
+        this.username = username;
+        this.passwordHash = passwordHash;
+        this.role = role;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return passwordHash;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser{" +
+                "userId=" + userId +
+                ", username='" + username + '\'' +
+                ", role=" + role +
+                '}';
+    }
+}
@@ -2,17 +2,12 @@ package com.pharmacy.security;
 
 import com.pharmacy.dao.UserDao;
 import com.pharmacy.model.User;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
-import java.util.Collections;
-
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
@@ -27,22 +22,19 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         try {
-            User user = userDao.getUserByUsername(username);
+            User user = userDao.getByUsername(username);
             if (user == null) {
                 throw new UsernameNotFoundException("User not found with username: " + username);
             }
 
-            return new org.springframework.security.core.userdetails.User(
+            return new AuthenticatedUser(
+                user.getUserId(),
                 user.getUsername(),
                 user.getPasswordHash(),
-                getAuthorities(user)
+                user.getRole()
             );
         } catch (Exception e) {
             throw new UsernameNotFoundException("User not found with username: " + username, e);
         }
     }
-
-    private Collection<? extends GrantedAuthority> getAuthorities(User user) {
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
-    }
 }
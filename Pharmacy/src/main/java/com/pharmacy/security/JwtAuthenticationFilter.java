@@ -6,24 +6,28 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
+/**
+ * Authenticates bearer tokens from their signed claims. The only lookup is the short-TTL
+ * {@link UserDetailsCache}, which rejects deleted users and applies role changes made
+ * after the token was issued.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final TokenProvider tokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
 
-    public JwtAuthenticationFilter(TokenProvider tokenProvider, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(TokenProvider tokenProvider, UserDetailsCache userDetailsCache) {
         this.tokenProvider = tokenProvider;
-        this.userDetailsService = userDetailsService;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
@@ -32,20 +36,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = getTokenFromRequest(request);
 
-        if (StringUtils.hasText(token) && tokenProvider.validateTokenWithoutException(token)) {
-            String username = tokenProvider.validateToken(token);
+        if (StringUtils.hasText(token)) {
+            Optional<AuthenticatedUser> user = tokenProvider.verify(token).flatMap(this::currentUser);
+            if (user.isPresent()) {
+                UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(user.get(), null, user.get().getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            UsernamePasswordAuthenticationToken authentication =
-                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
         }
 
         filterChain.doFilter(request, response);
     }
 
+    // a different id means the username was deleted and then taken by a new account
+    private Optional<AuthenticatedUser> currentUser(AuthenticatedUser claimed) {
+        return userDetailsCache.get(claimed.getUsername())
+                .filter(current -> current.getUserId() == claimed.getUserId());
+    }
+
     private String getTokenFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
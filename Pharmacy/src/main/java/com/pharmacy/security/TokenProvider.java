@@ -1,64 +1,91 @@
 package com.pharmacy.security;
 
+import com.pharmacy.model.enums.Role;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Issues and checks the API's JWTs. Tokens carry the user id ("uid") and role ("role") as
+ * signed claims next to the username, so requests can be authenticated without loading the user.
+ * The signing key and parser are built once; tokens verified recently are remembered until
+ * they expire so a client reusing its token skips the HMAC check and claim parsing.
+ */
 @Component
 public class TokenProvider {
 
-    @Value("${jwt.secret:mySecretKey}")
-    private String jwtSecret;
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
 
-    @Value("${jwt.expiration:86400}")
-    private int jwtExpirationInSeconds;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final int jwtExpirationInSeconds;
+    private final VerifiedTokenCache verified;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    public TokenProvider(@Value("${jwt.secret:mySecretKey}") String jwtSecret,
+                         @Value("${jwt.expiration:86400}") int jwtExpirationInSeconds,
+                         @Value("${jwt.verified-cache-size:10000}") int verifiedCacheSize) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.jwtExpirationInSeconds = jwtExpirationInSeconds;
+        this.verified = new VerifiedTokenCache(verifiedCacheSize);
     }
 
     public String createToken(Authentication authentication) {
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
+        AuthenticatedUser userPrincipal = (AuthenticatedUser) authentication.getPrincipal();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + (jwtExpirationInSeconds * 1000L));
 
         return Jwts.builder()
-                .subject(userPrincipal.getUsername())
-                .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .setSubject(userPrincipal.getUsername())
+                .claim(USER_ID_CLAIM, userPrincipal.getUserId())
+                .claim(ROLE_CLAIM, userPrincipal.getRole().name())
+                .setIssuedAt(now)
+                .setExpiration(expiryDate)
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String validateToken(String token) {
+    /**
+     * Checks the signature and expiry once and returns the principal from the token's claims.
+     * Tokens issued before the uid and role claims were added are rejected, which forces a fresh login.
+     */
+    public Optional<AuthenticatedUser> verify(String token) {
+        long now = System.currentTimeMillis();
+        AuthenticatedUser cached = verified.get(token, now);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            return claims.getSubject();
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Number userId = claims.get(USER_ID_CLAIM, Number.class);
+            String role = claims.get(ROLE_CLAIM, String.class);
+            if (userId == null || role == null || claims.getExpiration() == null) {
+                return Optional.empty();
+            }
+            AuthenticatedUser principal = new AuthenticatedUser(userId.longValue(), claims.getSubject(), null, Role.valueOf(role));
+            verified.put(token, principal, claims.getExpiration().getTime(), now);
+            return Optional.of(principal);
         } catch (JwtException | IllegalArgumentException e) {
-            throw new RuntimeException("Invalid JWT token", e);
+            return Optional.empty();
         }
     }
 
-    public boolean validateTokenWithoutException(String token) {
+    public String validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return parser.parseClaimsJws(token).getBody().getSubject();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            throw new RuntimeException("Invalid JWT token", e);
         }
     }
 }
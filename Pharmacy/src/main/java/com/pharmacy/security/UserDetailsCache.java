@@ -0,0 +1,83 @@
+package com.pharmacy.security;
+
+import com.pharmacy.dao.TableChangedEvent;
+import com.pharmacy.dao.UserChangedEvent;
+import com.pharmacy.dao.UserDao;
+import com.pharmacy.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived view of each user's current role and existence, checked against the JWT claims
+ * on every request. A role change or deletion applies after at most one TTL, or immediately
+ * on the instance that made it through {@link UserChangedEvent}, and within milliseconds on the
+ * others through the app_user change notifications.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final UserDao userDao;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Entry> byUsername = new ConcurrentHashMap<>();
+
+    public UserDetailsCache(UserDao userDao,
+                            @Value("${pharmacy.security.user-cache-ttl:30s}") Duration ttl) {
+        this.userDao = userDao;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    // user is null when the username no longer exists; that answer is cached too
+    private record Entry(AuthenticatedUser user, long loadedAt) {}
+
+    /** The user as currently stored, without the password hash; empty if deleted. */
+    public Optional<AuthenticatedUser> get(String username) {
+        Entry e = byUsername.get(username);
+        long now = System.nanoTime();
+        if (e == null || now - e.loadedAt() >= ttlNanos) {
+            e = new Entry(load(username), now);
+            byUsername.put(username, e);
+        }
+        return Optional.ofNullable(e.user());
+    }
+
+    public void evict(String username) {
+        byUsername.remove(username);
+    }
+
+    // after commit, so a concurrent request cannot reload the old row and cache it again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.username() != null) {
+            byUsername.remove(event.username());
+        }
+        // a rename leaves the old username behind
+        evictUserId(event.userId());
+    }
+
+    @EventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (!event.affects("app_user")) {
+            return;
+        }
+        if (event.isWholeTable()) {
+            byUsername.clear();
+        } else {
+            evictUserId(event.id());
+        }
+    }
+
+    private void evictUserId(long userId) {
+        byUsername.values().removeIf(e -> e.user() != null && e.user().getUserId() == userId);
+    }
+
+    private AuthenticatedUser load(String username) {
+        User user = userDao.getByUsername(username);
+        return user == null ? null : new AuthenticatedUser(user.getUserId(), user.getUsername(), null, user.getRole());
+    }
+}
@@ -0,0 +1,66 @@
+package com.pharmacy.security;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded cache of tokens whose signature has already been checked, read by every request
+ * thread without locking. Keyed by the token itself: hashing it first would cost about as much
+ * as the HMAC check being skipped, and anyone able to read the heap can read the signing key
+ * anyway. An entry is only returned until the token's own expiry, after which the token has
+ * to be verified (and rejected) again.
+ * <p>
+ * Eviction is approximate. Once a put takes the cache past its bound, one thread drops the
+ * expired entries and then arbitrary ones down to three quarters of the bound; an evicted
+ * token still in use just costs its next request one signature check.
+ */
+final class VerifiedTokenCache {
+
+    private record Entry(AuthenticatedUser principal, long expiresAtMillis) {}
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    AuthenticatedUser get(String token, long nowMillis) {
+        Entry e = entries.get(token);
+        if (e == null) {
+            return null;
+        }
+        if (nowMillis >= e.expiresAtMillis()) {
+            entries.remove(token, e);
+            return null;
+        }
+        return e.principal();
+    }
+
+    void put(String token, AuthenticatedUser principal, long expiresAtMillis, long nowMillis) {
+        if (maxSize <= 0) {
+            return;
+        }
+        entries.put(token, new Entry(principal, expiresAtMillis));
+        if (entries.size() > maxSize && evicting.compareAndSet(false, true)) {
+            try {
+                evict(nowMillis);
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    // hash order, so the survivors are effectively a random sample
+    private void evict(long nowMillis) {
+        entries.values().removeIf(e -> nowMillis >= e.expiresAtMillis());
+        int excess = entries.size() - maxSize * 3 / 4;
+        Iterator<String> it = entries.keySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
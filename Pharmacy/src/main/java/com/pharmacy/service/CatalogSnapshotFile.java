@@ -0,0 +1,257 @@
+package com.pharmacy.service;
+
+import com.pharmacy.dao.DataVersion;
+import com.pharmacy.model.Medication;
+import com.pharmacy.model.Product;
+import com.pharmacy.model.enums.ProductStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary on-disk copy of the product and medication catalogs, read back through a memory map
+ * at startup. Layout: a fixed header, fixed-width product, medication and NDC records whose
+ * strings are offsets into a deduplicated string table, then a CRC32 of everything before it.
+ * A file that is truncated, corrupt or of another format version reads as absent.
+ */
+final class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x50484353; // "PHCS"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 48;
+    private static final int PRODUCT_BYTES = 81;
+    private static final int MEDICATION_BYTES = 20;
+    private static final int NDC_BYTES = 12;
+    private static final int NO_STRING = -1;
+
+    private static final int RX = 1, VACCINE = 1 << 1, HAS_MEDICATION = 1 << 2, HAS_CREATED = 1 << 3, HAS_UPDATED = 1 << 4;
+
+    private CatalogSnapshotFile() {}
+
+    record Contents(Instant writtenAt, DataVersion productVersion, List<Product> products,
+                    List<Medication> medications, Map<String, Long> medicationIdsByNdc) {}
+
+    /** Writes to a temporary file beside {@code path} and renames it over, so readers never see half a file. */
+    static void write(Path path, DataVersion productVersion, List<Product> products,
+                      List<Medication> medications, Map<String, Long> medicationIdsByNdc) throws IOException {
+        StringTable strings = new StringTable();
+        int recordBytes = products.size() * PRODUCT_BYTES + medications.size() * MEDICATION_BYTES
+                + medicationIdsByNdc.size() * NDC_BYTES;
+        ByteBuffer records = ByteBuffer.allocate(recordBytes);
+
+        for (Product p : products) {
+            records.putLong(p.getProductId() == null ? 0 : p.getProductId());
+            records.putInt(strings.ref(p.getNdc()));
+            records.putInt(strings.ref(p.getName()));
+            records.putInt(strings.ref(p.getGenericName()));
+            records.putInt(strings.ref(p.getManufacturer()));
+            records.putInt(strings.ref(p.getDosageForm()));
+            records.putInt(strings.ref(p.getStrength()));
+            records.putInt(strings.ref(p.getStatus() == null ? null : p.getStatus().name()));
+            int flags = (p.isRx() ? RX : 0) | (p.isVaccine() ? VACCINE : 0)
+                    | (p.getMedicationId() != null ? HAS_MEDICATION : 0)
+                    | (p.getCreatedAt() != null ? HAS_CREATED : 0)
+                    | (p.getUpdatedAt() != null ? HAS_UPDATED : 0);
+            records.put((byte) flags);
+            records.putDouble(p.getUnitPrice());
+            records.putInt(p.getStockQty());
+            records.putLong(p.getMedicationId() == null ? 0 : p.getMedicationId());
+            putTimestamp(records, p.getCreatedAt());
+            putTimestamp(records, p.getUpdatedAt());
+        }
+        for (Medication m : medications) {
+            records.putLong(m.getMedicationId());
+            records.putInt(strings.ref(m.getName()));
+            records.putInt(strings.ref(m.getGenericName()));
+            records.putInt(strings.ref(m.getBrandName()));
+        }
+        for (Map.Entry<String, Long> e : medicationIdsByNdc.entrySet()) {
+            records.putInt(strings.ref(e.getKey()));
+            records.putLong(e.getValue());
+        }
+
+        byte[] table = strings.bytes();
+        ByteBuffer file = ByteBuffer.allocate(HEADER_BYTES + recordBytes + table.length + 4);
+        file.putInt(MAGIC);
+        file.putInt(FORMAT_VERSION);
+        file.putLong(System.currentTimeMillis());
+        file.putLong(productVersion.version());
+        file.putLong(productVersion.modifiedAt().toEpochMilli());
+        file.putInt(products.size());
+        file.putInt(medications.size());
+        file.putInt(medicationIdsByNdc.size());
+        file.putInt(table.length);
+        file.put(records.flip());
+        file.put(table);
+        CRC32 crc = new CRC32();
+        crc.update(file.array(), 0, file.position());
+        file.putInt((int) crc.getValue());
+
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                file.flip();
+                while (file.hasRemaining()) {
+                    out.write(file);
+                }
+                out.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Null when there is no usable file. */
+    static Contents read(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        MappedByteBuffer buf;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (in.size() < HEADER_BYTES + 4 || in.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            buf = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+        }
+        int size = buf.capacity();
+        if (buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT_VERSION) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().limit(size - 4));
+        if ((int) crc.getValue() != buf.getInt(size - 4)) {
+            return null;
+        }
+
+        Instant writtenAt = Instant.ofEpochMilli(buf.getLong(8));
+        DataVersion productVersion = new DataVersion("product", buf.getLong(16), Instant.ofEpochMilli(buf.getLong(24)));
+        int productCount = buf.getInt(32);
+        int medicationCount = buf.getInt(36);
+        int ndcCount = buf.getInt(40);
+        int tableBytes = buf.getInt(44);
+        int productsAt = HEADER_BYTES;
+        int medicationsAt = productsAt + productCount * PRODUCT_BYTES;
+        int ndcsAt = medicationsAt + medicationCount * MEDICATION_BYTES;
+        int tableAt = ndcsAt + ndcCount * NDC_BYTES;
+        if (tableAt + tableBytes + 4 != size) {
+            return null;
+        }
+        StringReader strings = new StringReader(buf, tableAt);
+
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0, at = productsAt; i < productCount; i++, at += PRODUCT_BYTES) {
+            Product p = new Product();
+            p.setProductId(buf.getLong(at));
+            p.setNdc(strings.get(buf.getInt(at + 8)));
+            p.setName(strings.get(buf.getInt(at + 12)));
+            p.setGenericName(strings.get(buf.getInt(at + 16)));
+            p.setManufacturer(strings.get(buf.getInt(at + 20)));
+            p.setDosageForm(strings.get(buf.getInt(at + 24)));
+            p.setStrength(strings.get(buf.getInt(at + 28)));
+            String status = strings.get(buf.getInt(at + 32));
+            p.setStatus(status == null ? null : ProductStatus.valueOf(status));
+            int flags = buf.get(at + 36);
+            p.setRx((flags & RX) != 0);
+            p.setVaccine((flags & VACCINE) != 0);
+            p.setUnitPrice(buf.getDouble(at + 37));
+            p.setStockQty(buf.getInt(at + 45));
+            p.setMedicationId((flags & HAS_MEDICATION) != 0 ? buf.getLong(at + 49) : null);
+            p.setCreatedAt((flags & HAS_CREATED) != 0 ? getTimestamp(buf, at + 57) : null);
+            p.setUpdatedAt((flags & HAS_UPDATED) != 0 ? getTimestamp(buf, at + 69) : null);
+            products.add(p);
+        }
+        List<Medication> medications = new ArrayList<>(medicationCount);
+        for (int i = 0, at = medicationsAt; i < medicationCount; i++, at += MEDICATION_BYTES) {
+            Medication m = new Medication();
+            m.setMedicationId(buf.getLong(at));
+            m.setName(strings.get(buf.getInt(at + 8)));
+            m.setGenericName(strings.get(buf.getInt(at + 12)));
+            m.setBrandName(strings.get(buf.getInt(at + 16)));
+            medications.add(m);
+        }
+        Map<String, Long> ndcs = new HashMap<>(ndcCount * 2);
+        for (int i = 0, at = ndcsAt; i < ndcCount; i++, at += NDC_BYTES) {
+            ndcs.put(strings.get(buf.getInt(at)), buf.getLong(at + 4));
+        }
+        return new Contents(writtenAt, productVersion, products, medications, ndcs);
+    }
+
+    private static void putTimestamp(ByteBuffer buf, OffsetDateTime ts) {
+        buf.putLong(ts == null ? 0 : ts.toInstant().toEpochMilli());
+        buf.putInt(ts == null ? 0 : ts.getOffset().getTotalSeconds());
+    }
+
+    private static OffsetDateTime getTimestamp(ByteBuffer buf, int at) {
+        return Instant.ofEpochMilli(buf.getLong(at)).atOffset(ZoneOffset.ofTotalSeconds(buf.getInt(at + 8)));
+    }
+
+    /** Each distinct string is stored once as [length][UTF-8 bytes]; a ref is its offset in the table. */
+    private static final class StringTable {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int ref(String s) {
+            if (s == null) {
+                return NO_STRING;
+            }
+            return refs.computeIfAbsent(s, k -> {
+                int ref = out.size();
+                byte[] utf8 = k.getBytes(StandardCharsets.UTF_8);
+                out.write(utf8.length >>> 24);
+                out.write(utf8.length >>> 16);
+                out.write(utf8.length >>> 8);
+                out.write(utf8.length);
+                out.writeBytes(utf8);
+                return ref;
+            });
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+    }
+
+    // decoded strings are shared, like the table they come from
+    private static final class StringReader {
+        private final ByteBuffer buf;
+        private final int tableAt;
+        private final Map<Integer, String> decoded = new HashMap<>();
+
+        StringReader(ByteBuffer buf, int tableAt) {
+            this.buf = buf;
+            this.tableAt = tableAt;
+        }
+
+        String get(int ref) {
+            if (ref == NO_STRING) {
+                return null;
+            }
+            return decoded.computeIfAbsent(ref, r -> {
+                int at = tableAt + r;
+                byte[] utf8 = new byte[buf.getInt(at)];
+                buf.get(at + 4, utf8);
+                return new String(utf8, StandardCharsets.UTF_8);
+            });
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.pharmacy.service;
+
+import com.pharmacy.config.Workload;
+import com.pharmacy.model.Medication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Warm start for the product and medication catalogs. Before the server takes traffic, the
+ * snapshot file written by the previous run is memory-mapped and installed in both caches;
+ * once the application is ready they are reconciled against the database in the background
+ * and the file is rewritten. It is also rewritten periodically whenever the catalogs changed.
+ * Leave pharmacy.catalog.snapshot-file empty to disable.
+ */
+@Component
+public class CatalogWarmStart implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogWarmStart.class);
+
+    private final ProductCatalogCache products;
+    private final MedicationCatalog medications;
+    private final Path file;
+
+    // what was last written, so unchanged catalogs are not rewritten
+    private volatile Object savedProducts;
+    private volatile Object savedMedications;
+
+    public CatalogWarmStart(ProductCatalogCache products, MedicationCatalog medications,
+                            @Value("${pharmacy.catalog.snapshot-file:}") String file) {
+        this.products = products;
+        this.medications = medications;
+        this.file = file.isBlank() ? null : Path.of(file);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (file == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            CatalogSnapshotFile.Contents c = CatalogSnapshotFile.read(file);
+            if (c == null) {
+                log.info("No usable catalog snapshot at {}, caches start cold", file);
+                return;
+            }
+            products.prime(c.productVersion(), c.products());
+            medications.prime(c.medications(), c.medicationIdsByNdc());
+            log.info("Catalog caches restored from {} (written {}): {} products, {} medications in {} ms",
+                    file, c.writtenAt(), c.products().size(), c.medications().size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not restore catalog snapshot from {}, caches start cold", file, e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileInBackground() {
+        if (file == null) {
+            return;
+        }
+        Thread t = new Thread(() -> {
+            try {
+                Workload.background(() -> {
+                    products.reconcile();
+                    medications.refresh();
+                });
+                save();
+            } catch (RuntimeException e) {
+                log.warn("Catalog reconcile failed; caches reload on their normal schedule", e);
+            }
+        }, "catalog-reconcile");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.catalog.snapshot-interval-ms:300000}",
+               initialDelayString = "${pharmacy.catalog.snapshot-interval-ms:300000}")
+    public void save() {
+        if (file == null) {
+            return;
+        }
+        ProductCatalogCache.Snapshot p = products.loaded();
+        MedicationCatalog.Snapshot m = medications.loaded();
+        if (p == null || m == null || (p == savedProducts && m == savedMedications)) {
+            return;
+        }
+        Map<String, Long> ndcs = new HashMap<>(m.byNdc().size() * 2);
+        for (Map.Entry<String, Medication> e : m.byNdc().entrySet()) {
+            ndcs.put(e.getKey(), e.getValue().getMedicationId());
+        }
+        try {
+            CatalogSnapshotFile.write(file, p.version(), p.byName(), m.byGenericName(), ndcs);
+            savedProducts = p;
+            savedMedications = m;
+            log.debug("Catalog snapshot written to {}", file);
+        } catch (IOException e) {
+            log.warn("Could not write catalog snapshot to {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.pharmacy.service;
+
+import com.pharmacy.config.Workload;
+import com.pharmacy.dao.FacilityDao;
+import com.pharmacy.dao.TableChangedEvent;
+import com.pharmacy.model.Facility;
+import com.pharmacy.util.LongObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory copy of the facility table and of prescriber_facility, for decorating work queue
+ * rows with facility names and prescriber affiliations. Both are keyed by primitive ids, and
+ * the bulk resolve methods answer a whole page of rows without a query. Any change to either
+ * table drops the snapshot and the next read loads both again, in one read-only transaction;
+ * they are small and rarely written. Returned facilities must not be modified.
+ */
+@Service
+public class FacilityNearCache {
+
+    private static final Logger log = LoggerFactory.getLogger(FacilityNearCache.class);
+
+    private static final long[] NONE = new long[0];
+
+    private final FacilityDao dao;
+    private final TransactionTemplate readOnly;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public FacilityNearCache(FacilityDao dao, PlatformTransactionManager transactionManager) {
+        this.dao = dao;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /** Facilities by id plus each prescriber's sorted facility ids. */
+    private record Snapshot(List<Facility> all, LongObjectMap<Facility> byId, LongObjectMap<long[]> facilityIdsByPrescriber) {}
+
+    public List<Facility> listAll() {
+        return current().all();
+    }
+
+    public Optional<Facility> findById(long facilityId) {
+        return Optional.ofNullable(current().byId().get(facilityId));
+    }
+
+    /** The facility for each id, in the same order; null where the id is unknown. */
+    public Facility[] resolveFacilities(long[] facilityIds) {
+        LongObjectMap<Facility> byId = current().byId();
+        Facility[] out = new Facility[facilityIds.length];
+        for (int i = 0; i < facilityIds.length; i++) {
+            out[i] = byId.get(facilityIds[i]);
+        }
+        return out;
+    }
+
+    /** The facility ids each prescriber is affiliated with, in the same order; empty when none. */
+    public long[][] resolveAffiliations(long[] prescriberIds) {
+        LongObjectMap<long[]> byPrescriber = current().facilityIdsByPrescriber();
+        long[][] out = new long[prescriberIds.length][];
+        for (int i = 0; i < prescriberIds.length; i++) {
+            long[] ids = byPrescriber.get(prescriberIds[i]);
+            // copies, since callers get arrays they could write to
+            out[i] = ids == null ? NONE : ids.clone();
+        }
+        return out;
+    }
+
+    public void invalidate() {
+        invalidations.incrementAndGet();
+        snapshot.set(null);
+    }
+
+    /** Deleting a prescriber cascades to prescriber_facility, which notifies on its own. */
+    @EventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (event.affects("facility") || event.affects("prescriber_facility")) {
+            invalidate();
+        }
+    }
+
+    /** Catches changes made while notifications were off. */
+    @Scheduled(fixedDelayString = "${pharmacy.facility-cache.refresh-interval-ms:600000}",
+               initialDelayString = "${pharmacy.facility-cache.refresh-interval-ms:600000}")
+    public void scheduledRefresh() {
+        if (snapshot.get() != null) {
+            Workload.background(this::reload);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot.get();
+        return s != null ? s : reloadIfMissing();
+    }
+
+    private synchronized Snapshot reloadIfMissing() {
+        Snapshot s = snapshot.get();
+        return s != null ? s : reload();
+    }
+
+    private synchronized Snapshot reload() {
+        long start = System.nanoTime();
+        long seen = invalidations.get();
+        // primary: a reload usually follows a change notification a replica may not have replayed yet
+        Snapshot s = Workload.primary(() -> readOnly.execute(status -> load()));
+        // a change notified while loading may not be in s; serve it once but do not keep it
+        if (invalidations.get() == seen) {
+            snapshot.set(s);
+        }
+        log.debug("Facility cache loaded: {} facilities, {} prescribers with affiliations in {} ms",
+                s.byId().size(), s.facilityIdsByPrescriber().size(), (System.nanoTime() - start) / 1_000_000);
+        return s;
+    }
+
+    private Snapshot load() {
+        List<Facility> all = List.copyOf(dao.listAll());
+        LongObjectMap<Facility> byId = new LongObjectMap<>(all.size());
+        for (Facility f : all) {
+            byId.put(f.getFacilityId(), f);
+        }
+        Affiliations affiliations = new Affiliations(Math.max(16, all.size() * 4));
+        dao.streamAffiliations(affiliations);
+        return new Snapshot(all, byId, affiliations.finish());
+    }
+
+    // rows arrive grouped by prescriber; each run becomes one array
+    private static final class Affiliations implements FacilityDao.AffiliationVisitor {
+        private final LongObjectMap<long[]> byPrescriber;
+        private long[] run = new long[8];
+        private int n;
+        private long prescriberId = -1;
+
+        Affiliations(int expectedPrescribers) {
+            this.byPrescriber = new LongObjectMap<>(expectedPrescribers);
+        }
+
+        @Override
+        public void visit(long prescriberId, long facilityId) {
+            if (prescriberId != this.prescriberId) {
+                flush();
+                this.prescriberId = prescriberId;
+            }
+            if (n == run.length) {
+                run = Arrays.copyOf(run, n * 2);
+            }
+            run[n++] = facilityId;
+        }
+
+        LongObjectMap<long[]> finish() {
+            flush();
+            return byPrescriber;
+        }
+
+        private void flush() {
+            if (n > 0) {
+                byPrescriber.put(prescriberId, Arrays.copyOf(run, n));
+                n = 0;
+            }
+        }
+    }
+}
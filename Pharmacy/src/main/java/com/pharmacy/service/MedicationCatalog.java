@@ -0,0 +1,209 @@
+package com.pharmacy.service;
+
+import com.pharmacy.config.Workload;
+import com.pharmacy.dao.MedicationDao;
+import com.pharmacy.dao.TableChangedEvent;
+import com.pharmacy.model.Medication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Versioned in-memory copy of the medication reference table. Each snapshot carries a strong
+ * ETag computed from its content, so every instance serving the same data hands out the same
+ * tag and clients can revalidate with If-None-Match. A refresh that finds identical content
+ * keeps the current snapshot and its tag. Returned medications must not be modified.
+ */
+@Service
+public class MedicationCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicationCatalog.class);
+
+    private static final Comparator<Medication> BY_GENERIC_NAME = Comparator
+            .comparing(Medication::getGenericName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparingLong(Medication::getMedicationId);
+
+    private final MedicationDao dao;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private volatile boolean stale;
+
+    public MedicationCatalog(MedicationDao dao) {
+        this.dao = dao;
+    }
+
+    /** Immutable medication list with its lookup indexes; version increases on every content change. */
+    public record Snapshot(long version, String etag, List<Medication> byGenericName, String[] lowerNames,
+                           Map<Long, Medication> byId, Map<String, Medication> byNdc) {
+
+        static Snapshot of(long version, List<Medication> medications, Map<String, Long> idsByNdc) {
+            List<Medication> sorted = new ArrayList<>(medications);
+            sorted.sort(BY_GENERIC_NAME);
+            String[] lowerNames = new String[sorted.size()];
+            Map<Long, Medication> byId = new HashMap<>(sorted.size() * 2);
+            for (int i = 0; i < sorted.size(); i++) {
+                Medication m = sorted.get(i);
+                lowerNames[i] = m.getGenericName() == null ? "" : m.getGenericName().toLowerCase(Locale.ROOT);
+                byId.put(m.getMedicationId(), m);
+            }
+            // sorted so the hash below does not depend on the database's row order
+            Map<String, Medication> byNdc = new TreeMap<>();
+            idsByNdc.forEach((ndc, id) -> {
+                Medication m = byId.get(id);
+                if (m != null) {
+                    byNdc.put(ndc, m);
+                }
+            });
+            return new Snapshot(version, etag(sorted, byNdc), List.copyOf(sorted), lowerNames,
+                    Map.copyOf(byId), Map.copyOf(byNdc));
+        }
+
+        private static String etag(List<Medication> sorted, Map<String, Medication> byNdc) {
+            MessageDigest digest = sha256();
+            for (Medication m : sorted) {
+                update(digest, Long.toString(m.getMedicationId()));
+                update(digest, m.getName());
+                update(digest, m.getGenericName());
+                update(digest, m.getBrandName());
+            }
+            for (Map.Entry<String, Medication> e : byNdc.entrySet()) {
+                update(digest, e.getKey());
+                update(digest, Long.toString(e.getValue().getMedicationId()));
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        }
+
+        // length-prefixed so ("ab", "c") and ("a", "bc") hash differently
+        private static void update(MessageDigest digest, String value) {
+            if (value == null) {
+                digest.update((byte) 0xff);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) (bytes.length >>> 24));
+            digest.update((byte) (bytes.length >>> 16));
+            digest.update((byte) (bytes.length >>> 8));
+            digest.update((byte) bytes.length);
+            digest.update(bytes);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /** The current snapshot; read once per request so the body and its ETag always match. */
+    public Snapshot current() {
+        Snapshot s = snapshot.get();
+        return s != null && !stale ? s : refreshIfStale();
+    }
+
+    public Optional<Medication> findById(Snapshot s, long medicationId) {
+        return Optional.ofNullable(s.byId().get(medicationId));
+    }
+
+    public Optional<Medication> findByNdc(Snapshot s, String ndc) {
+        return Optional.ofNullable(s.byNdc().get(ndc));
+    }
+
+    /** Case-insensitive substring match on generic name, like the DAO's ILIKE '%q%'. */
+    public List<Medication> searchByName(Snapshot s, String q) {
+        String needle = q.toLowerCase(Locale.ROOT);
+        List<Medication> matches = new ArrayList<>();
+        for (int i = 0; i < s.lowerNames().length; i++) {
+            if (s.lowerNames()[i].contains(needle)) {
+                matches.add(s.byGenericName().get(i));
+            }
+        }
+        return matches;
+    }
+
+    public Medication create(Medication medication) {
+        Medication created = dao.create(medication);
+        refresh();
+        return created;
+    }
+
+    public Medication update(Medication medication) {
+        Medication updated = dao.update(medication);
+        refresh();
+        return updated;
+    }
+
+    public boolean delete(long medicationId) {
+        boolean deleted = dao.deleteById(medicationId);
+        if (deleted) {
+            refresh();
+        }
+        return deleted;
+    }
+
+    /** Picks up changes made outside this instance: other nodes, bulk loads, product NDC edits. */
+    @Scheduled(fixedDelayString = "${pharmacy.catalog.medication-refresh-interval-ms:60000}",
+               initialDelayString = "${pharmacy.catalog.medication-refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        if (snapshot.get() != null) {
+            Workload.background(this::refresh);
+        }
+    }
+
+    /** Installs a snapshot restored from disk, unless one was already loaded from the database. */
+    void prime(List<Medication> medications, Map<String, Long> medicationIdsByNdc) {
+        snapshot.compareAndSet(null, Snapshot.of(1, medications, medicationIdsByNdc));
+    }
+
+    /** The snapshot currently held, without loading; null if none. */
+    Snapshot loaded() {
+        return snapshot.get();
+    }
+
+    /** Medications, or the products carrying their NDCs, changed on some instance. */
+    @EventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (event.affects("medication") || event.affects("product")) {
+            stale = true;
+        }
+    }
+
+    // readers queued here behind a refresh take its result instead of loading again
+    private synchronized Snapshot refreshIfStale() {
+        Snapshot s = snapshot.get();
+        return s != null && !stale ? s : refresh();
+    }
+
+    public synchronized Snapshot refresh() {
+        // cleared before loading, so a change notified during the load marks the result stale again
+        stale = false;
+        Snapshot old = snapshot.get();
+        // primary: refreshes follow writes and notifications; a lagging replica would hand back the old
+        // content, whose identical ETag would then keep the old snapshot
+        Snapshot loaded = Workload.primary(() -> Snapshot.of(old == null ? 1 : old.version() + 1,
+                dao.listAll(), dao.medicationIdsByNdc()));
+        if (old != null && old.etag().equals(loaded.etag())) {
+            return old;
+        }
+        snapshot.set(loaded);
+        log.debug("Medication catalog v{} loaded: {} medications, etag {}",
+                loaded.version(), loaded.byGenericName().size(), loaded.etag());
+        return loaded;
+    }
+}
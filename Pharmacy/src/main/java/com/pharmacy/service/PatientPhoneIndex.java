@@ -0,0 +1,220 @@
+package com.pharmacy.service;
+
+import com.pharmacy.config.Workload;
+import com.pharmacy.dao.PatientDao;
+import com.pharmacy.dao.TableChangedEvent;
+import com.pharmacy.model.Patient;
+import com.pharmacy.util.PhoneNumbers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counter lookup of patients by phone number. Numbers are compared as digits only, against
+ * the indexed patient.phone_digits column, and every patient sharing the number is returned.
+ * With pharmacy.patient-phone-index.enabled the phone to patient-id map is also held in
+ * memory, so an unknown number costs no query and a known one a primary-key fetch. The map is
+ * kept current by the writes below, by patient change notifications from other instances,
+ * and by a periodic rebuild. Changes made while a rebuild is loading are replayed onto the new
+ * map before it replaces the old one.
+ */
+@Service
+public class PatientPhoneIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientPhoneIndex.class);
+
+    private static final String TABLE = "patient";
+
+    private final PatientDao dao;
+    private final boolean enabled;
+    private volatile Index index;
+
+    // guards every write to an index and the fields below
+    private final Object writes = new Object();
+    // changes applied while a rebuild is loading, replayed onto its result; null when none runs
+    private List<Change> duringRebuild;
+    private boolean resetDuringRebuild;
+
+    public PatientPhoneIndex(PatientDao dao,
+                             @Value("${pharmacy.patient-phone-index.enabled:false}") boolean enabled) {
+        this.dao = dao;
+        this.enabled = enabled;
+    }
+
+    private static final class Index {
+        final Map<String, long[]> idsByDigits = new ConcurrentHashMap<>();
+        final Map<Long, String> digitsById = new ConcurrentHashMap<>();
+    }
+
+    /** A patient's phone digits after a change; null once the patient was deleted. */
+    private record Change(long patientId, String digits) {}
+
+    public List<Patient> findByPhone(String phone) {
+        String digits = PhoneNumbers.digits(phone);
+        if (digits.isEmpty()) {
+            return List.of();
+        }
+        if (!enabled) {
+            return dao.findAllByPhoneDigits(digits);
+        }
+        long[] ids = index().idsByDigits.get(digits);
+        if (ids == null) {
+            return List.of();
+        }
+        return dao.listByIds(Arrays.stream(ids).boxed().toList());
+    }
+
+    public Patient create(Patient patient) {
+        Patient created = dao.create(patient);
+        apply(new Change(created.getPatientId(), PhoneNumbers.digits(created.getContact().getPhone())));
+        return created;
+    }
+
+    public Patient update(Patient patient) {
+        Patient updated = dao.update(patient);
+        apply(new Change(updated.getPatientId(), PhoneNumbers.digits(updated.getContact().getPhone())));
+        return updated;
+    }
+
+    public boolean delete(long patientId) {
+        boolean deleted = dao.deletePatient(patientId);
+        if (deleted) {
+            apply(new Change(patientId, null));
+        }
+        return deleted;
+    }
+
+    @EventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (!event.affects(TABLE)) {
+            return;
+        }
+        synchronized (writes) {
+            if (index == null && duringRebuild == null) {
+                return;
+            }
+            if (event.isWholeTable()) {
+                index = null;
+                resetDuringRebuild = duringRebuild != null;
+                return;
+            }
+        }
+        // the notification comes from the primary at commit, possibly before a replica has the row
+        Optional<Patient> current = Workload.primary(() -> dao.findById(event.id()));
+        apply(new Change(event.id(), current.map(p -> PhoneNumbers.digits(p.getContact().getPhone())).orElse(null)));
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.patient-phone-index.rebuild-interval-ms:900000}",
+               initialDelayString = "${pharmacy.patient-phone-index.rebuild-interval-ms:900000}")
+    public void scheduledRebuild() {
+        if (index != null) {
+            Workload.background(this::rebuild);
+        }
+    }
+
+    private Index index() {
+        Index ix = index;
+        return ix != null ? ix : rebuildIfMissing();
+    }
+
+    private synchronized Index rebuildIfMissing() {
+        Index ix = index;
+        return ix != null ? ix : rebuild();
+    }
+
+    private synchronized Index rebuild() {
+        long start = System.nanoTime();
+        synchronized (writes) {
+            duringRebuild = new ArrayList<>();
+            resetDuringRebuild = false;
+        }
+        Map<Long, String> digitsById;
+        try {
+            digitsById = Workload.primary(dao::phoneDigitsById);
+        } catch (RuntimeException e) {
+            synchronized (writes) {
+                duringRebuild = null;
+            }
+            throw e;
+        }
+        Index ix = new Index();
+        digitsById.forEach((id, digits) -> add(ix, id, digits));
+        synchronized (writes) {
+            // each change carries the row's state after it, so replaying in order lands on the latest
+            for (Change c : duringRebuild) {
+                applyTo(ix, c);
+            }
+            duringRebuild = null;
+            // a whole-table change during the load: serve this index once but do not keep it
+            if (!resetDuringRebuild) {
+                index = ix;
+            }
+        }
+        log.debug("Patient phone index rebuilt: {} numbers in {} ms", ix.idsByDigits.size(), (System.nanoTime() - start) / 1_000_000);
+        return ix;
+    }
+
+    private void apply(Change c) {
+        synchronized (writes) {
+            if (duringRebuild != null) {
+                duringRebuild.add(c);
+            }
+            Index ix = index;
+            if (ix != null) {
+                applyTo(ix, c);
+            }
+        }
+    }
+
+    private static void applyTo(Index ix, Change c) {
+        remove(ix, c.patientId());
+        if (c.digits() != null && !c.digits().isEmpty()) {
+            add(ix, c.patientId(), c.digits());
+        }
+    }
+
+    // id arrays are copied on write: families are a handful of patients and lookups never lock
+    private static void add(Index ix, long patientId, String digits) {
+        ix.digitsById.put(patientId, digits);
+        ix.idsByDigits.compute(digits, (k, ids) -> {
+            if (ids == null) {
+                return new long[]{patientId};
+            }
+            for (long id : ids) {
+                if (id == patientId) {
+                    return ids;
+                }
+            }
+            long[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = patientId;
+            return grown;
+        });
+    }
+
+    private static void remove(Index ix, long patientId) {
+        String digits = ix.digitsById.remove(patientId);
+        if (digits == null) {
+            return;
+        }
+        ix.idsByDigits.computeIfPresent(digits, (k, ids) -> {
+            int n = 0;
+            long[] kept = new long[ids.length];
+            for (long id : ids) {
+                if (id != patientId) {
+                    kept[n++] = id;
+                }
+            }
+            return n == 0 ? null : Arrays.copyOf(kept, n);
+        });
+    }
+}
@@ -0,0 +1,228 @@
+package com.pharmacy.service;
+
+import com.pharmacy.config.Workload;
+import com.pharmacy.dao.PrescriberDao;
+import com.pharmacy.dao.TableChangedEvent;
+import com.pharmacy.model.Prescriber;
+import com.pharmacy.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * NPI lookups for prescriber validation. A Bloom filter of every known NPI turns most unknown
+ * or mistyped NPIs away without a query; known ones are served from a map keyed by NPI.
+ * Single prescriber changes are applied in place from {@link TableChangedEvent}s. The index is
+ * rebuilt from scratch periodically, after a resync, and once more NPIs were added than the
+ * filter was sized for, since a Bloom filter can neither grow nor forget deleted NPIs.
+ * Changes made while a rebuild is loading are recorded and replayed onto the new index before
+ * it replaces the old one, so the filter never loses an NPI it was told about.
+ */
+@Service
+public class PrescriberNpiCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PrescriberNpiCache.class);
+
+    private static final String TABLE = "prescriber";
+    private static final int MIN_CAPACITY = 1024;
+
+    private final PrescriberDao dao;
+    private final double falsePositiveRate;
+    private final AtomicReference<Index> index = new AtomicReference<>();
+
+    // guards every write to an index and the fields below
+    private final Object writes = new Object();
+    // changes applied while a rebuild is loading, replayed onto its result; null when none runs
+    private List<Change> duringRebuild;
+    private boolean resetDuringRebuild;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder dbLookups = new LongAdder();
+
+    public PrescriberNpiCache(PrescriberDao dao,
+                              @Value("${pharmacy.prescriber-npi.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.dao = dao;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /** NPI filter plus the maps behind it; writers hold {@link #writes}, readers never lock. */
+    private static final class Index {
+        final BloomFilter known;
+        final Map<String, Prescriber> byNpi = new ConcurrentHashMap<>();
+        final Map<Long, String> npiById = new ConcurrentHashMap<>();
+        int added;
+
+        Index(int capacity, double falsePositiveRate) {
+            this.known = BloomFilter.create(capacity, falsePositiveRate);
+        }
+    }
+
+    /** A prescriber's current row, or null once it was deleted. */
+    private record Change(long prescriberId, Prescriber current) {}
+
+    public Optional<Prescriber> findByNpi(String npi) {
+        Index ix = index();
+        if (!ix.known.mightContain(npi)) {
+            filtered.increment();
+            return Optional.empty();
+        }
+        Prescriber p = ix.byNpi.get(npi);
+        if (p != null) {
+            hits.increment();
+            return Optional.of(p);
+        }
+        // a false positive, or an NPI whose prescriber was deleted or renumbered
+        dbLookups.increment();
+        Optional<Prescriber> found = dao.findByNpi(npi);
+        found.ifPresent(this::put);
+        return found;
+    }
+
+    public Prescriber create(Prescriber prescriber) {
+        Prescriber created = dao.create(prescriber);
+        put(created);
+        return created;
+    }
+
+    public Prescriber update(Prescriber prescriber) {
+        Prescriber updated = dao.update(prescriber);
+        put(updated);
+        return updated;
+    }
+
+    @EventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (!event.affects(TABLE)) {
+            return;
+        }
+        if (event.isWholeTable()) {
+            synchronized (writes) {
+                index.set(null);
+                resetDuringRebuild = duringRebuild != null;
+            }
+            return;
+        }
+        if (index.get() == null && !rebuilding()) {
+            return;
+        }
+        // the notification comes from the primary at commit, possibly before a replica has the row
+        Optional<Prescriber> current = Workload.primary(() -> dao.findById(event.id()));
+        apply(new Change(event.id(), current.orElse(null)));
+    }
+
+    /** Clears the NPIs of deleted prescribers out of the filter and catches any missed change. */
+    @Scheduled(fixedDelayString = "${pharmacy.prescriber-npi.rebuild-interval-ms:600000}",
+               initialDelayString = "${pharmacy.prescriber-npi.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        if (index.get() != null) {
+            Workload.background(this::rebuild);
+        }
+    }
+
+    public Map<String, Long> stats() {
+        Index ix = index.get();
+        return Map.of(
+                "hits", hits.sum(),
+                "filtered", filtered.sum(),
+                "dbLookups", dbLookups.sum(),
+                "size", ix == null ? 0L : (long) ix.byNpi.size());
+    }
+
+    private Index index() {
+        Index ix = index.get();
+        return ix != null ? ix : rebuildIfMissing();
+    }
+
+    private synchronized Index rebuildIfMissing() {
+        Index ix = index.get();
+        return ix != null ? ix : rebuild();
+    }
+
+    private synchronized Index rebuild() {
+        long start = System.nanoTime();
+        synchronized (writes) {
+            duringRebuild = new ArrayList<>();
+            resetDuringRebuild = false;
+        }
+        List<Prescriber> all;
+        try {
+            all = Workload.primary(dao::listAll);
+        } catch (RuntimeException e) {
+            synchronized (writes) {
+                duringRebuild = null;
+            }
+            throw e;
+        }
+        Index ix = new Index(Math.max(MIN_CAPACITY, all.size() * 2), falsePositiveRate);
+        for (Prescriber p : all) {
+            applyTo(ix, new Change(p.getPrescriberId(), p));
+        }
+        synchronized (writes) {
+            // each change carries the row's state after it, so replaying in order lands on the latest
+            for (Change c : duringRebuild) {
+                applyTo(ix, c);
+            }
+            duringRebuild = null;
+            // a whole-table change during the load: serve this index once but do not keep it
+            if (!resetDuringRebuild && ix.added <= ix.known.expectedInsertions()) {
+                index.set(ix);
+            }
+        }
+        log.debug("Prescriber NPI index rebuilt: {} NPIs in {} ms", ix.byNpi.size(), (System.nanoTime() - start) / 1_000_000);
+        return ix;
+    }
+
+    private boolean rebuilding() {
+        synchronized (writes) {
+            return duringRebuild != null;
+        }
+    }
+
+    private void put(Prescriber p) {
+        apply(new Change(p.getPrescriberId(), p));
+    }
+
+    private void apply(Change c) {
+        synchronized (writes) {
+            if (duringRebuild != null) {
+                duringRebuild.add(c);
+            }
+            Index ix = index.get();
+            if (ix != null) {
+                applyTo(ix, c);
+                if (ix.added > ix.known.expectedInsertions()) {
+                    // past capacity the false-positive rate climbs; the next read builds a bigger filter
+                    index.set(null);
+                }
+            }
+        }
+    }
+
+    // a deleted prescriber's NPI stays in the filter until the next rebuild; lookups for it fall through to the DAO
+    private static void applyTo(Index ix, Change c) {
+        String old = ix.npiById.remove(c.prescriberId());
+        if (old != null) {
+            ix.byNpi.remove(old);
+        }
+        Prescriber p = c.current();
+        if (p == null || p.getNpi() == null) {
+            return;
+        }
+        ix.npiById.put(p.getPrescriberId(), p.getNpi());
+        ix.byNpi.put(p.getNpi(), p);
+        ix.known.add(p.getNpi());
+        ix.added++;
+    }
+}
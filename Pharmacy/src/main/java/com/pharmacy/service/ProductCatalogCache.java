@@ -0,0 +1,224 @@
+package com.pharmacy.service;
+
+import com.pharmacy.config.Workload;
+import com.pharmacy.dao.DataVersion;
+import com.pharmacy.dao.DataVersionDao;
+import com.pharmacy.dao.ProductDao;
+import com.pharmacy.dao.TableChangedEvent;
+import com.pharmacy.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of the whole product catalog. Readers work against an immutable
+ * snapshot held in an AtomicReference and never block; writes go to the DAO and then swap in
+ * a freshly loaded snapshot. The snapshot is also reloaded after the configured TTL so changes
+ * made outside this class (bulk loads, stock adjustments) show up eventually; product changes
+ * notified by any instance drop the snapshot right away.
+ * Returned products are shared with the snapshot and must not be modified.
+ */
+@Service
+public class ProductCatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalogCache.class);
+
+    private static final Comparator<Product> BY_NAME = Comparator
+            .comparing(Product::getName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing(Product::getProductId, Comparator.nullsLast(Comparator.<Long>naturalOrder()));
+
+    private static final String TABLE = "product";
+
+    private final ProductDao dao;
+    private final DataVersionDao versions;
+    private final TransactionTemplate readOnly;
+    private final long ttlNanos;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    public ProductCatalogCache(ProductDao dao, DataVersionDao versions, PlatformTransactionManager transactionManager,
+                               @Value("${pharmacy.catalog.product-ttl:5m}") Duration ttl) {
+        this.dao = dao;
+        this.versions = versions;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /** Immutable view of the catalog: products sorted by name plus the lookup indexes. */
+    record Snapshot(DataVersion version, List<Product> byName, String[] lowerNames, Map<Long, Product> byId,
+                            Map<String, Product> byNdc, long loadedAt) {
+
+        static Snapshot of(DataVersion version, List<Product> products) {
+            List<Product> sorted = new ArrayList<>(products);
+            sorted.sort(BY_NAME);
+            String[] lowerNames = new String[sorted.size()];
+            Map<Long, Product> byId = new HashMap<>(sorted.size() * 2);
+            Map<String, Product> byNdc = new HashMap<>(sorted.size() * 2);
+            for (int i = 0; i < sorted.size(); i++) {
+                Product p = sorted.get(i);
+                lowerNames[i] = p.getName() == null ? "" : p.getName().toLowerCase(Locale.ROOT);
+                byId.put(p.getProductId(), p);
+                if (p.getNdc() != null) {
+                    byNdc.put(p.getNdc(), p);
+                }
+            }
+            return new Snapshot(version, List.copyOf(sorted), lowerNames, Map.copyOf(byId), Map.copyOf(byNdc), System.nanoTime());
+        }
+    }
+
+    /**
+     * The table version the current snapshot was loaded at, loading one first if there is none
+     * or it is past its TTL; no database query otherwise. Anything read from the cache
+     * afterwards is at least this version.
+     */
+    public DataVersion version() {
+        return current().version();
+    }
+
+    public List<Product> listAll() {
+        return current().byName();
+    }
+
+    public Optional<Product> findById(long productId) {
+        return Optional.ofNullable(current().byId().get(productId));
+    }
+
+    public List<Product> findByNdc(String ndc) {
+        Product p = current().byNdc().get(ndc);
+        return p == null ? List.of() : List.of(p);
+    }
+
+    /** Case-insensitive substring match in name order, like the DAO's ILIKE '%name%'. */
+    public List<Product> findByName(String name) {
+        Snapshot s = current();
+        String needle = name.toLowerCase(Locale.ROOT);
+        List<Product> matches = new ArrayList<>();
+        for (int i = 0; i < s.lowerNames().length; i++) {
+            if (s.lowerNames()[i].contains(needle)) {
+                matches.add(s.byName().get(i));
+            }
+        }
+        return matches;
+    }
+
+    public Product create(Product product) {
+        Product created = dao.create(product);
+        reload();
+        return created;
+    }
+
+    public List<Product> createAll(List<Product> products) {
+        List<Product> created = dao.createAll(products);
+        reload();
+        return created;
+    }
+
+    public Product update(Product product) {
+        Product updated = dao.update(product);
+        reload();
+        return updated;
+    }
+
+    public boolean delete(long productId) {
+        boolean deleted = dao.delete(productId);
+        if (deleted) {
+            reload();
+        }
+        return deleted;
+    }
+
+    /** Installs a snapshot restored from disk, unless one was already loaded from the database. */
+    void prime(DataVersion version, List<Product> products) {
+        snapshot.compareAndSet(null, Snapshot.of(version, products));
+    }
+
+    /** Reloads unless the loaded snapshot is exactly the table's current version. */
+    void reconcile() {
+        Snapshot s = snapshot.get();
+        if (s == null || !versions.get(TABLE).equals(s.version())) {
+            reload();
+        }
+    }
+
+    /** The snapshot currently held, without loading or counting a read; null if none. */
+    Snapshot loaded() {
+        return snapshot.get();
+    }
+
+    /** Drops the snapshot; the next read loads a new one. */
+    public void invalidate() {
+        snapshot.set(null);
+    }
+
+    /** A product changed on some instance; the whole snapshot is rebuilt on the next read. */
+    @EventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (event.affects(TABLE)) {
+            invalidate();
+        }
+    }
+
+    public Map<String, Long> stats() {
+        Snapshot s = snapshot.get();
+        return Map.of(
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "rebuilds", rebuilds.sum(),
+                "lastRebuildMillis", lastRebuildMillis,
+                "size", s == null ? 0L : (long) s.byName().size());
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot.get();
+        if (s != null && System.nanoTime() - s.loadedAt() < ttlNanos) {
+            hits.increment();
+            return s;
+        }
+        misses.increment();
+        return reloadIfStale(s);
+    }
+
+    // only one thread reloads; the others waiting here pick up its snapshot
+    private synchronized Snapshot reloadIfStale(Snapshot seen) {
+        Snapshot s = snapshot.get();
+        if (s != null && s != seen) {
+            return s;
+        }
+        return reload();
+    }
+
+    private synchronized Snapshot reload() {
+        long start = System.nanoTime();
+        // version first, in the same transaction: the snapshot may be newer than its version, never older.
+        // From the primary, since reloads follow writes and notifications a replica may not have replayed
+        Snapshot s = Workload.primary(() -> readOnly.execute(status -> {
+            DataVersion version = versions.get(TABLE);
+            return Snapshot.of(version, dao.listAll());
+        }));
+        snapshot.set(s);
+        rebuilds.increment();
+        lastRebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        log.debug("Product catalog reloaded: {} products in {} ms", s.byName().size(), lastRebuildMillis);
+        return s;
+    }
+}
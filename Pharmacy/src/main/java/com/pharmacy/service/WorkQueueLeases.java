@@ -0,0 +1,68 @@
+package com.pharmacy.service;
+
+import com.pharmacy.config.Workload;
+import com.pharmacy.dao.WorkflowClaimDao;
+import com.pharmacy.exception.BadRequestException;
+import com.pharmacy.model.Prescription;
+import com.pharmacy.model.enums.WorkflowStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Work queue claiming for technicians and pharmacists. Each claim leases the next prescriptions
+ * of a stage to one user for pharmacy.workflow.lease; the lease is renewed while they work and
+ * released when they finish or give up. Leases that run out, e.g. because the user closed the
+ * browser, are swept back into their queues periodically.
+ */
+@Service
+public class WorkQueueLeases {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkQueueLeases.class);
+
+    private final WorkflowClaimDao dao;
+    private final WorkQueueScheduler scheduler;
+    private final Duration lease;
+    private final int maxClaim;
+
+    public WorkQueueLeases(WorkflowClaimDao dao, WorkQueueScheduler scheduler,
+                           @Value("${pharmacy.workflow.lease:15m}") Duration lease,
+                           @Value("${pharmacy.workflow.max-claim:50}") int maxClaim) {
+        this.dao = dao;
+        this.scheduler = scheduler;
+        this.lease = lease;
+        this.maxClaim = maxClaim;
+    }
+
+    public List<Prescription> claim(WorkflowStage stage, String userId, int count) {
+        if (count < 1 || count > maxClaim) {
+            throw new BadRequestException("Claim between 1 and " + maxClaim + " prescriptions");
+        }
+        List<Prescription> claimed = dao.claim(stage, userId, count, lease);
+        // their notifications follow the commit; do not offer them as next meanwhile
+        scheduler.removeAll(claimed.stream().map(Prescription::getPrescriptionId).toList());
+        return claimed;
+    }
+
+    public boolean renew(long prescriptionId, String userId) {
+        return dao.renew(prescriptionId, userId, lease);
+    }
+
+    public boolean release(long prescriptionId, String userId) {
+        return dao.release(prescriptionId, userId);
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.workflow.lease-sweep-interval-ms:30000}",
+               initialDelayString = "${pharmacy.workflow.lease-sweep-interval-ms:30000}")
+    public void releaseExpired() {
+        int released = Workload.background(dao::releaseExpired);
+        if (released > 0) {
+            log.info("Returned {} prescriptions with expired leases to their queues", released);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.pharmacy.service;
+
+import com.pharmacy.config.Workload;
+import com.pharmacy.dao.QueuedPrescription;
+import com.pharmacy.dao.TableChangedEvent;
+import com.pharmacy.dao.WorkflowChangedEvent;
+import com.pharmacy.dao.WorkflowClaimDao;
+import com.pharmacy.exception.ServiceException;
+import com.pharmacy.model.enums.WorkflowStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory work queue order, so the next best prescription of a stage is picked without a
+ * database sort. Unassigned prescriptions waiting in a work queue are kept in one binary heap
+ * per stage and facility, ordered by priority flag, then SLA deadline (entering the workflow
+ * plus pharmacy.workflow.turnaround-sla, so time lost in earlier stages counts), then time in
+ * the stage; claims lease in the same order. Built from the database once the application is
+ * ready and after a resync, then kept current from {@link WorkflowChangedEvent}s; a periodic
+ * rebuild covers changes made while notifications were off. Superseded heap entries are only marked dead and skipped,
+ * and a heap is compacted once they outnumber the live ones.
+ */
+@Service
+public class WorkQueueScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkQueueScheduler.class);
+
+    static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry e) -> !e.priority)
+            .thenComparingLong(e -> e.deadline)
+            .thenComparingLong(e -> e.stageEnteredAt)
+            .thenComparingLong(e -> e.prescriptionId);
+
+    private final WorkflowClaimDao dao;
+    private final long slaMillis;
+
+    // all guarded by this; every operation is a few heap steps
+    private Map<WorkflowStage, Map<Long, Heap>> heaps = new EnumMap<>(WorkflowStage.class);
+    private Map<Long, Entry> byId = new HashMap<>();
+    private volatile boolean built;
+    // events that arrive while a rebuild queries the database, replayed onto its result
+    private List<WorkflowChangedEvent> duringRebuild;
+
+    public WorkQueueScheduler(WorkflowClaimDao dao,
+                              @Value("${pharmacy.workflow.turnaround-sla:4h}") Duration turnaroundSla) {
+        this.dao = dao;
+        this.slaMillis = turnaroundSla.toMillis();
+    }
+
+    /** One queued prescription as the API shows it; {@code overdue} when past its SLA deadline. */
+    public record WorkItem(long prescriptionId, long facilityId, WorkflowStage stage, boolean priority,
+                           Instant deadline, Instant stageEnteredAt, boolean overdue) {}
+
+    static final class Entry {
+        final long prescriptionId;
+        final long facilityId;
+        final WorkflowStage stage;
+        final boolean priority;
+        final long deadline;
+        final long stageEnteredAt;
+        boolean live = true;
+
+        Entry(long prescriptionId, long facilityId, WorkflowStage stage, boolean priority, long deadline, long stageEnteredAt) {
+            this.prescriptionId = prescriptionId;
+            this.facilityId = facilityId;
+            this.stage = stage;
+            this.priority = priority;
+            this.deadline = deadline;
+            this.stageEnteredAt = stageEnteredAt;
+        }
+    }
+
+    /** Array-backed binary min-heap under {@link #ORDER} that can list its best k without removing them. */
+    static final class Heap {
+        Entry[] a = new Entry[16];
+        int size;
+        int dead;
+
+        void add(Entry e) {
+            if (size == a.length) {
+                a = Arrays.copyOf(a, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (ORDER.compare(a[parent], e) <= 0) {
+                    break;
+                }
+                a[i] = a[parent];
+                i = parent;
+            }
+            a[i] = e;
+        }
+
+        void markDead() {
+            if (++dead > size / 2 && size > 16) {
+                compact();
+            } else {
+                dropDeadTop();
+            }
+        }
+
+        int live() {
+            return size - dead;
+        }
+
+        /** Best {@code k} live entries in order: a best-first walk over the heap tree, O(k log k). */
+        void best(int k, List<Entry> out) {
+            if (size == 0 || k <= 0) {
+                return;
+            }
+            PriorityQueue<Integer> frontier = new PriorityQueue<>((x, y) -> ORDER.compare(a[x], a[y]));
+            frontier.add(0);
+            int found = 0;
+            while (found < k && !frontier.isEmpty()) {
+                int i = frontier.poll();
+                if (a[i].live) {
+                    out.add(a[i]);
+                    found++;
+                }
+                int child = 2 * i + 1;
+                if (child < size) {
+                    frontier.add(child);
+                }
+                if (child + 1 < size) {
+                    frontier.add(child + 1);
+                }
+            }
+        }
+
+        private void dropDeadTop() {
+            while (size > 0 && !a[0].live) {
+                Entry last = a[--size];
+                a[size] = null;
+                dead--;
+                if (size > 0) {
+                    siftDown(last);
+                }
+            }
+        }
+
+        private void siftDown(Entry e) {
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && ORDER.compare(a[child + 1], a[child]) < 0) {
+                    child++;
+                }
+                if (ORDER.compare(e, a[child]) <= 0) {
+                    break;
+                }
+                a[i] = a[child];
+                i = child;
+            }
+            a[i] = e;
+        }
+
+        private void compact() {
+            Entry[] old = a;
+            int n = size;
+            a = new Entry[Math.max(16, Integer.highestOneBit(Math.max(1, n - dead)) << 1)];
+            size = 0;
+            dead = 0;
+            for (int i = 0; i < n; i++) {
+                if (old[i].live) {
+                    add(old[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * The best {@code count} queued prescriptions of {@code stage}, best first, from one facility
+     * or, when {@code facilityId} is null, from all of them.
+     */
+    public List<WorkItem> next(WorkflowStage stage, Long facilityId, int count) {
+        awaitBuilt();
+        List<Entry> best = new ArrayList<>(count);
+        synchronized (this) {
+            Map<Long, Heap> byFacility = heaps.get(stage);
+            if (byFacility == null) {
+                return List.of();
+            }
+            if (facilityId != null) {
+                Heap h = byFacility.get(facilityId);
+                if (h != null) {
+                    h.best(count, best);
+                }
+            } else {
+                for (Heap h : byFacility.values()) {
+                    h.best(count, best);
+                }
+                best.sort(ORDER);
+                if (best.size() > count) {
+                    best.subList(count, best.size()).clear();
+                }
+            }
+        }
+        long now = System.currentTimeMillis();
+        List<WorkItem> items = new ArrayList<>(best.size());
+        for (Entry e : best) {
+            items.add(new WorkItem(e.prescriptionId, e.facilityId, e.stage, e.priority,
+                    Instant.ofEpochMilli(e.deadline), Instant.ofEpochMilli(e.stageEnteredAt), e.deadline < now));
+        }
+        return items;
+    }
+
+    /** Queued prescriptions per facility for {@code stage}. */
+    public Map<Long, Integer> depths(WorkflowStage stage) {
+        awaitBuilt();
+        Map<Long, Integer> depths = new HashMap<>();
+        synchronized (this) {
+            heaps.getOrDefault(stage, Map.of()).forEach((facility, h) -> {
+                if (h.live() > 0) {
+                    depths.put(facility, h.live());
+                }
+            });
+        }
+        return depths;
+    }
+
+    /** Takes prescriptions out of the queues right away, e.g. once claimed here, ahead of their notifications. */
+    public synchronized void removeAll(List<Long> prescriptionIds) {
+        for (long id : prescriptionIds) {
+            remove(id);
+        }
+    }
+
+    @EventListener
+    public synchronized void onWorkflowChanged(WorkflowChangedEvent event) {
+        if (duringRebuild != null) {
+            duringRebuild.add(event);
+        }
+        if (built) {
+            apply(event);
+        }
+    }
+
+    @EventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (event.table() == null) {
+            rebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAtStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Work queue scheduler could not be built at startup; retrying on first use", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.workflow.scheduler-rebuild-interval-ms:300000}",
+               initialDelayString = "${pharmacy.workflow.scheduler-rebuild-interval-ms:300000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        synchronized (this) {
+            if (duringRebuild != null) {
+                return;
+            }
+            duringRebuild = new ArrayList<>();
+        }
+        List<QueuedPrescription> queued;
+        try {
+            queued = Workload.background(dao::listQueued);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                duringRebuild = null;
+                notifyAll();
+            }
+            throw e;
+        }
+        long start = System.nanoTime();
+        synchronized (this) {
+            heaps = new EnumMap<>(WorkflowStage.class);
+            byId = new HashMap<>(queued.size() * 2);
+            for (QueuedPrescription q : queued) {
+                add(new Entry(q.prescriptionId(), q.facilityId(), q.stage(), q.priority(),
+                        deadline(q.enteredWorkflowAt()), q.stageEnteredAt().toEpochMilli()));
+            }
+            // each event carries the row's full state, so replaying them in order lands on the latest
+            for (WorkflowChangedEvent e : duringRebuild) {
+                apply(e);
+            }
+            duringRebuild = null;
+            built = true;
+            notifyAll();
+        }
+        log.debug("Work queue scheduler rebuilt: {} queued prescriptions in {} ms",
+                queued.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Asked before the startup build finished: builds now, or waits for the build already
+     * running rather than answering from the still empty heaps. Throws ServiceException if
+     * that build fails.
+     */
+    private void awaitBuilt() {
+        if (built) {
+            return;
+        }
+        rebuild();
+        synchronized (this) {
+            try {
+                while (!built && duringRebuild != null) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceException("Interrupted waiting for the work queues to load", e);
+            }
+            if (!built) {
+                throw new ServiceException("Work queues are not loaded yet");
+            }
+        }
+    }
+
+    private void apply(WorkflowChangedEvent e) {
+        remove(e.prescriptionId());
+        if (!e.deleted() && e.status().isWorkQueue() && e.assignedToUserId() == null) {
+            add(new Entry(e.prescriptionId(), e.facilityId(), e.stage(), e.priority(),
+                    deadline(e.enteredWorkflowAt()), e.stageEnteredAt().toEpochMilli()));
+        }
+    }
+
+    private long deadline(Instant enteredWorkflowAt) {
+        return enteredWorkflowAt.toEpochMilli() + slaMillis;
+    }
+
+    private void add(Entry e) {
+        byId.put(e.prescriptionId, e);
+        heaps.computeIfAbsent(e.stage, s -> new HashMap<>())
+                .computeIfAbsent(e.facilityId, f -> new Heap())
+                .add(e);
+    }
+
+    private void remove(long prescriptionId) {
+        Entry old = byId.remove(prescriptionId);
+        if (old != null) {
+            old.live = false;
+            heaps.get(old.stage).get(old.facilityId).markDead();
+        }
+    }
+}
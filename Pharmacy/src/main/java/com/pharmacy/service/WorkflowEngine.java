@@ -0,0 +1,36 @@
+package com.pharmacy.service;
+
+import com.pharmacy.dao.PrescriptionDao;
+import com.pharmacy.dao.TransitionResult;
+import com.pharmacy.exception.BadRequestException;
+import com.pharmacy.model.enums.WorkflowStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Applies workflow transitions in bulk. The rules are the table compiled into
+ * {@link WorkflowStatus}; a batch becomes one UPDATE restricted to the prescriptions whose
+ * current status may move to the target, and every id gets its own result.
+ */
+@Service
+public class WorkflowEngine {
+
+    public static final int MAX_BATCH = 500;
+
+    private final PrescriptionDao dao;
+
+    public WorkflowEngine(PrescriptionDao dao) {
+        this.dao = dao;
+    }
+
+    public List<TransitionResult> transition(long[] prescriptionIds, WorkflowStatus target) {
+        if (prescriptionIds.length > MAX_BATCH) {
+            throw new BadRequestException("At most " + MAX_BATCH + " prescriptions per transition");
+        }
+        if (prescriptionIds.length == 0) {
+            return List.of();
+        }
+        return dao.transitionAll(prescriptionIds, target, WorkflowStatus.sourcesOf(target));
+    }
+}
@@ -0,0 +1,276 @@
+package com.pharmacy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacy.config.Workload;
+import com.pharmacy.dao.TableChangedEvent;
+import com.pharmacy.dao.WorkflowChangedEvent;
+import com.pharmacy.dao.WorkflowEventDao;
+import com.pharmacy.dao.WorkflowStatusCount;
+import com.pharmacy.exception.ServiceException;
+import com.pharmacy.model.enums.WorkflowStage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent events for workstations, replacing queue polling. Sends "workflow" events for
+ * prescription stage, status and assignment changes on any instance (via pharmacy_workflow
+ * notifications), "counts" with the per stage and status queue depths at most once per tick
+ * after a change, and "resync" when the client missed events and should reload its queues.
+ * Each client may filter by facility and stage.
+ * <p>
+ * Publishing never blocks on a client: messages go into a bounded per-client queue drained by
+ * a small pool. A client whose queue fills up has it replaced by a single resync; one that
+ * fills it again before even that was sent is disconnected, and its EventSource reconnects.
+ */
+@Service
+public class WorkflowStream {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkflowStream.class);
+
+    // messages sent per drain before the thread moves on to other clients
+    private static final int DRAIN_BATCH = 64;
+
+    private static final Message RESYNC = new Message("resync", "{}");
+    private static final Message KEEPALIVE = new Message(null, "keepalive");
+
+    private final WorkflowEventDao events;
+    private final ObjectMapper json;
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final int maxClients;
+    private final ExecutorService senders;
+
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean countsChanged = new AtomicBoolean();
+    private final AtomicInteger ticks = new AtomicInteger();
+
+    public WorkflowStream(WorkflowEventDao events, ObjectMapper json,
+                          @Value("${pharmacy.workflow.stream-timeout:30m}") Duration timeout,
+                          @Value("${pharmacy.workflow.stream-queue-capacity:256}") int queueCapacity,
+                          @Value("${pharmacy.workflow.stream-max-clients:1000}") int maxClients,
+                          @Value("${pharmacy.workflow.stream-threads:4}") int threads) {
+        this.events = events;
+        this.json = json;
+        this.timeoutMillis = timeout.toMillis();
+        this.queueCapacity = queueCapacity;
+        this.maxClients = maxClients;
+        AtomicInteger n = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "workflow-stream-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** An SSE event; a null name marks an SSE comment. Data is serialized once for all clients. */
+    private record Message(String name, String data) {}
+
+    /**
+     * Opens a stream. Null or empty filters mean every facility or stage.
+     * Throws ServiceException when the instance already serves its maximum of clients.
+     */
+    public SseEmitter open(long[] facilityIds, Set<WorkflowStage> stages) {
+        if (clients.size() >= maxClients) {
+            throw new ServiceException("Too many workflow stream clients");
+        }
+        long[] facilities = facilityIds == null || facilityIds.length == 0 ? null : facilityIds.clone();
+        if (facilities != null) {
+            Arrays.sort(facilities);
+        }
+        EnumSet<WorkflowStage> stageFilter = stages == null || stages.isEmpty() ? null : EnumSet.copyOf(stages);
+        Client client = new Client(new SseEmitter(timeoutMillis), facilities, stageFilter);
+        client.emitter.onCompletion(() -> clients.remove(client));
+        client.emitter.onTimeout(client::close);
+        client.emitter.onError(e -> client.close());
+        clients.add(client);
+        // current depths right away, so the client needs no separate first query
+        client.offer(countsMessage(events.statusCounts(), stageFilter));
+        return client.emitter;
+    }
+
+    @EventListener
+    public void onWorkflowChanged(WorkflowChangedEvent event) {
+        countsChanged.set(true);
+        if (clients.isEmpty()) {
+            return;
+        }
+        Message message = new Message("workflow", write(event));
+        for (Client c : clients) {
+            if (c.accepts(event)) {
+                c.offer(message);
+            }
+        }
+    }
+
+    /** After the notification connection dropped, changes may have been missed. */
+    @EventListener
+    public void onTableChanged(TableChangedEvent event) {
+        if (event.table() == null) {
+            countsChanged.set(true);
+            for (Client c : clients) {
+                c.offer(RESYNC);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pharmacy.workflow.stream-tick-ms:2000}")
+    public void tick() {
+        if (clients.isEmpty()) {
+            return;
+        }
+        if (countsChanged.getAndSet(false)) {
+            List<WorkflowStatusCount> counts = Workload.background(events::statusCounts);
+            // one serialization per distinct stage filter, not per client
+            Map<Set<WorkflowStage>, Message> byFilter = new HashMap<>();
+            for (Client c : clients) {
+                c.offer(byFilter.computeIfAbsent(c.stages == null ? Set.of() : c.stages,
+                        f -> countsMessage(counts, c.stages)));
+            }
+        }
+        // a comment every few ticks keeps proxies from closing idle streams and finds dead ones
+        if (ticks.incrementAndGet() % 8 == 0) {
+            for (Client c : clients) {
+                c.offer(KEEPALIVE);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Client c : clients) {
+            c.close();
+        }
+        senders.shutdownNow();
+    }
+
+    private Message countsMessage(List<WorkflowStatusCount> counts, Set<WorkflowStage> stages) {
+        List<WorkflowStatusCount> visible = stages == null ? counts
+                : counts.stream().filter(c -> stages.contains(c.stage())).toList();
+        return new Message("counts", write(visible));
+    }
+
+    private String write(Object value) {
+        try {
+            return json.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new ServiceException("Failed to serialize workflow stream event", e);
+        }
+    }
+
+    private final class Client {
+        final SseEmitter emitter;
+        final long[] facilities;
+        final EnumSet<WorkflowStage> stages;
+
+        // guarded by this
+        private final ArrayDeque<Message> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean resyncPending;
+        private boolean closed;
+
+        Client(SseEmitter emitter, long[] facilities, EnumSet<WorkflowStage> stages) {
+            this.emitter = emitter;
+            this.facilities = facilities;
+            this.stages = stages;
+        }
+
+        boolean accepts(WorkflowChangedEvent e) {
+            return (facilities == null || Arrays.binarySearch(facilities, e.facilityId()) >= 0)
+                    && (stages == null || stages.contains(e.stage()));
+        }
+
+        void offer(Message m) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() >= queueCapacity) {
+                    if (resyncPending) {
+                        // not even the last resync went out: the client is not reading
+                        log.info("Disconnecting workflow stream client that stopped reading");
+                        closed = true;
+                        queue.clear();
+                        senders.execute(this::close);
+                        return;
+                    }
+                    queue.clear();
+                    m = RESYNC;
+                }
+                if (m == RESYNC) {
+                    resyncPending = true;
+                }
+                queue.add(m);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        private void drain() {
+            for (int sent = 0; ; sent++) {
+                Message m;
+                synchronized (this) {
+                    m = closed ? null : queue.poll();
+                    if (m == null) {
+                        draining = false;
+                        return;
+                    }
+                    if (sent == DRAIN_BATCH) {
+                        // requeue the rest behind other clients' work
+                        queue.addFirst(m);
+                        senders.execute(this::drain);
+                        return;
+                    }
+                    if (m == RESYNC) {
+                        resyncPending = false;
+                    }
+                }
+                try {
+                    emitter.send(m.name() == null
+                            ? SseEmitter.event().comment(m.data())
+                            : SseEmitter.event().name(m.name()).data(m.data()));
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            clients.remove(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // already completed
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.pharmacy.util;
+
+/**
+ * Hash map from primitive long keys to values, with open addressing and linear probing, so
+ * lookups neither box the key nor chase entry objects. Not thread-safe: fill it on one thread,
+ * then publish it and only read from it.
+ */
+public final class LongObjectMap<V> {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /** Returns the previous value for {@code key}, or null. Values must not be null. */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null value for key " + key);
+        }
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = cast(values[i]);
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length * LOAD_FACTOR) {
+            grow();
+        }
+        return null;
+    }
+
+    public V get(long key) {
+        int i = slot(key);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                return cast(v);
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldKeys[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object v) {
+        return (V) v;
+    }
+
+    @Override
+    public String toString() {
+        return "LongObjectMap{size=" + size + ", capacity=" + keys.length + '}';
+    }
+}
@@ -0,0 +1,24 @@
+package com.pharmacy.util;
+
+public final class PhoneNumbers {
+
+    private PhoneNumbers() {}
+
+    /**
+     * Digits of a phone number with all formatting removed. Must match the generated
+     * patient.phone_digits column (V2__patient_phone_digits.sql); null becomes "".
+     */
+    public static String digits(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
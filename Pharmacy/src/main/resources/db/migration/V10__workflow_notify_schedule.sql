@@ -0,0 +1,36 @@
+-- Adds what WorkQueueScheduler orders by to the pharmacy_workflow payload, and notifies on
+-- priority changes too. Payload: op:prescription_id:facility_id:stage:status:priority:
+-- entered_workflow_at:current_stage_entered_at:assigned_to_user_id, timestamps in epoch
+-- milliseconds and priority as t or f.
+SET LOCAL search_path = pharmacy;
+
+CREATE OR REPLACE FUNCTION notify_workflow_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    r pharmacy.prescription;
+BEGIN
+    IF TG_OP = 'UPDATE'
+            AND OLD.current_stage IS NOT DISTINCT FROM NEW.current_stage
+            AND OLD.workflow_status IS NOT DISTINCT FROM NEW.workflow_status
+            AND OLD.assigned_to_user_id IS NOT DISTINCT FROM NEW.assigned_to_user_id
+            AND OLD.priority IS NOT DISTINCT FROM NEW.priority THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP = 'DELETE' THEN
+        r := OLD;
+    ELSE
+        r := NEW;
+    END IF;
+    PERFORM pg_notify('pharmacy_workflow', TG_OP || ':' || r.prescription_id || ':' || r.facility_id || ':'
+            || r.current_stage || ':' || r.workflow_status || ':' || CASE WHEN r.priority THEN 't' ELSE 'f' END || ':'
+            || (extract(epoch FROM r.entered_workflow_at) * 1000)::bigint || ':'
+            || (extract(epoch FROM r.current_stage_entered_at) * 1000)::bigint || ':'
+            || coalesce(r.assigned_to_user_id, ''));
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_prescription_workflow_notify ON prescription;
+CREATE TRIGGER trg_prescription_workflow_notify
+    AFTER INSERT OR UPDATE OF current_stage, workflow_status, assigned_to_user_id, priority OR DELETE ON prescription
+    FOR EACH ROW EXECUTE FUNCTION notify_workflow_change();
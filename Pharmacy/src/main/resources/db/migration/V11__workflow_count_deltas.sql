@@ -0,0 +1,66 @@
+-- Replaces V8's striped workflow_status_count with append-only deltas. Upserting counter rows
+-- locked them until commit, and a bulk transition fires the trigger once per prescription, so
+-- two transactions moving prescriptions in opposite directions could take the same counter
+-- rows in opposite orders and deadlock. Inserting a -1 and a +1 row locks nothing shared;
+-- readers sum the rows and WorkflowCountCompactor periodically folds them into one per
+-- stage and status.
+-- Events also record who holds the prescription after the change, next to who held it before.
+SET LOCAL search_path = pharmacy;
+
+ALTER TABLE prescription_workflow_event ADD COLUMN IF NOT EXISTS to_assigned_to_user_id text;
+
+CREATE TABLE IF NOT EXISTS workflow_status_delta (
+    current_stage   workflow_stage NOT NULL,
+    workflow_status workflow_status NOT NULL,
+    delta           bigint NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION record_workflow_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+            AND OLD.current_stage IS NOT DISTINCT FROM NEW.current_stage
+            AND OLD.workflow_status IS NOT DISTINCT FROM NEW.workflow_status THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP = 'UPDATE' THEN
+        INSERT INTO pharmacy.workflow_status_delta VALUES
+            (OLD.current_stage, OLD.workflow_status, -1),
+            (NEW.current_stage, NEW.workflow_status, 1);
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO pharmacy.workflow_status_delta VALUES (OLD.current_stage, OLD.workflow_status, -1);
+    ELSE
+        INSERT INTO pharmacy.workflow_status_delta VALUES (NEW.current_stage, NEW.workflow_status, 1);
+    END IF;
+    INSERT INTO pharmacy.prescription_workflow_event
+        (prescription_id, from_stage, from_status, to_stage, to_status, assigned_to_user_id, to_assigned_to_user_id)
+    VALUES (
+        CASE WHEN TG_OP = 'DELETE' THEN OLD.prescription_id ELSE NEW.prescription_id END,
+        CASE WHEN TG_OP = 'INSERT' THEN NULL ELSE OLD.current_stage END,
+        CASE WHEN TG_OP = 'INSERT' THEN NULL ELSE OLD.workflow_status END,
+        CASE WHEN TG_OP = 'DELETE' THEN NULL ELSE NEW.current_stage END,
+        CASE WHEN TG_OP = 'DELETE' THEN NULL ELSE NEW.workflow_status END,
+        CASE WHEN TG_OP = 'INSERT' THEN NEW.assigned_to_user_id ELSE OLD.assigned_to_user_id END,
+        CASE WHEN TG_OP = 'DELETE' THEN NULL ELSE NEW.assigned_to_user_id END);
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION reset_workflow_counts() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    DELETE FROM pharmacy.workflow_status_delta;
+    RETURN NULL;
+END
+$$;
+
+-- carry the counts over with no transition slipping in between; the triggers stay installed
+LOCK TABLE prescription IN SHARE ROW EXCLUSIVE MODE;
+
+DELETE FROM workflow_status_delta;
+INSERT INTO workflow_status_delta (current_stage, workflow_status, delta)
+SELECT current_stage, workflow_status, count(*)
+FROM prescription
+GROUP BY current_stage, workflow_status;
+
+DROP TABLE IF EXISTS workflow_status_count;
@@ -0,0 +1,9 @@
+-- Claims take the next prescriptions in the order WorkQueueScheduler shows them: priority,
+-- then SLA deadline (entered_workflow_at plus a constant), then time in the stage. V7's claim
+-- index left out entered_workflow_at; rebuilt with it so the claim still reads the index in order.
+SET LOCAL search_path = pharmacy;
+
+DROP INDEX IF EXISTS idx_prescription_claim_order;
+CREATE INDEX idx_prescription_claim_order
+    ON prescription(workflow_status, priority DESC, entered_workflow_at, current_stage_entered_at, prescription_id)
+    WHERE workflow_status IN ('DATA_ENTRY_PENDING', 'DATA_REVIEW_PENDING', 'PRODUCT_PENDING', 'PRODUCT_REVIEW_PENDING');
@@ -0,0 +1,9 @@
+-- Claims only take pending prescriptions nobody is assigned to yet, the rows WorkQueueScheduler
+-- queues. The claim index's predicate gains the same condition so the claim still walks it in order.
+SET LOCAL search_path = pharmacy;
+
+DROP INDEX IF EXISTS idx_prescription_claim_order;
+CREATE INDEX idx_prescription_claim_order
+    ON prescription(workflow_status, priority DESC, entered_workflow_at, current_stage_entered_at, prescription_id)
+    WHERE workflow_status IN ('DATA_ENTRY_PENDING', 'DATA_REVIEW_PENDING', 'PRODUCT_PENDING', 'PRODUCT_REVIEW_PENDING')
+      AND assigned_to_user_id IS NULL;
@@ -0,0 +1,54 @@
+-- Indexes for the filters and sort orders used by the DAO queries.
+SET LOCAL search_path = pharmacy;
+
+-- fulfillment: by product, by status, and per-prescription listing order
+CREATE INDEX IF NOT EXISTS idx_fulfillment_product ON fulfillment(product_id);
+CREATE INDEX IF NOT EXISTS idx_fulfillment_status ON fulfillment(status);
+CREATE INDEX IF NOT EXISTS idx_fulfillment_rx_filled
+    ON fulfillment(prescription_id, filled_at NULLS LAST, fulfillment_id);
+
+-- prescription: keyset pages by patient / prescriber, status filters, open workflow queues
+CREATE INDEX IF NOT EXISTS idx_prescription_patient_written
+    ON prescription(patient_id, date_written DESC, prescription_id DESC);
+CREATE INDEX IF NOT EXISTS idx_prescription_prescriber_written
+    ON prescription(prescriber_id, date_written DESC, prescription_id DESC);
+CREATE INDEX IF NOT EXISTS idx_prescription_status_written
+    ON prescription(status, date_written DESC);
+CREATE INDEX IF NOT EXISTS idx_prescription_open_workflow
+    ON prescription(current_stage, workflow_status, current_stage_entered_at)
+    WHERE current_stage NOT IN ('COMPLETED', 'CANCELLED');
+
+-- name ordering and keyset pagination
+CREATE INDEX IF NOT EXISTS idx_patient_name ON patient(last_name, first_name, patient_id);
+CREATE INDEX IF NOT EXISTS idx_prescriber_name ON prescriber(last_name, first_name, prescriber_id);
+CREATE INDEX IF NOT EXISTS idx_product_name ON product(name, product_id);
+CREATE INDEX IF NOT EXISTS idx_medication_generic_name ON medication(generic_name);
+
+-- substring (ILIKE '%x%') searches need trigram indexes; skipped when pg_trgm can't be installed
+DO $$
+BEGIN
+    BEGIN
+        CREATE EXTENSION IF NOT EXISTS pg_trgm;
+    EXCEPTION WHEN insufficient_privilege THEN
+        RAISE NOTICE 'pg_trgm not available, skipping trigram indexes';
+    END;
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS idx_patient_first_name_trgm ON patient USING gin (first_name gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_patient_last_name_trgm ON patient USING gin (last_name gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_prescriber_first_name_trgm ON prescriber USING gin (first_name gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_prescriber_last_name_trgm ON prescriber USING gin (last_name gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_product_name_trgm ON product USING gin (name gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_medication_generic_name_trgm ON medication USING gin (generic_name gin_trgm_ops);
+    END IF;
+END $$;
+
+-- pending notification sweep; the table is created outside pharmacy_data.sql
+DO $$
+BEGIN
+    IF to_regclass('pharmacy.patient_notification') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_notification_status_created
+            ON patient_notification(status, created_at);
+        CREATE INDEX IF NOT EXISTS idx_notification_pending
+            ON patient_notification(created_at) WHERE status = 'PENDING';
+    END IF;
+END $$;
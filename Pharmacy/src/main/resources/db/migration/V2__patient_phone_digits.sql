@@ -0,0 +1,8 @@
+-- Digits-only phone number for JdbcPatientDao.findByPhoneDigits.
+SET LOCAL search_path = pharmacy;
+
+ALTER TABLE patient
+    ADD COLUMN IF NOT EXISTS phone_digits text
+    GENERATED ALWAYS AS (regexp_replace(coalesce(phone, ''), '[^0-9]', '', 'g')) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_patient_phone_digits ON patient(phone_digits);
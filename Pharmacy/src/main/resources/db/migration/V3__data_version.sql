@@ -0,0 +1,45 @@
+-- Per-table change counter for conditional GETs (DataVersionDao / ConditionalGet).
+-- Statement-level triggers bump the row once per INSERT/UPDATE/DELETE/TRUNCATE statement,
+-- so a bulk load costs one bump rather than one per row.
+SET LOCAL search_path = pharmacy;
+
+CREATE TABLE IF NOT EXISTS data_version (
+    table_name  text PRIMARY KEY,
+    version     bigint NOT NULL DEFAULT 1,
+    modified_at timestamptz NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE OR REPLACE FUNCTION bump_data_version() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO pharmacy.data_version (table_name) VALUES (TG_TABLE_NAME)
+    ON CONFLICT (table_name) DO UPDATE
+        SET version = pharmacy.data_version.version + 1,
+            modified_at = clock_timestamp();
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_product_data_version ON product;
+CREATE TRIGGER trg_product_data_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON product
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+
+DROP TRIGGER IF EXISTS trg_medication_data_version ON medication;
+CREATE TRIGGER trg_medication_data_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON medication
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+
+DROP TRIGGER IF EXISTS trg_prescriber_data_version ON prescriber;
+CREATE TRIGGER trg_prescriber_data_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON prescriber
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+
+DROP TRIGGER IF EXISTS trg_facility_data_version ON facility;
+CREATE TRIGGER trg_facility_data_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON facility
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_data_version();
+
+INSERT INTO data_version (table_name)
+VALUES ('product'), ('medication'), ('prescriber'), ('facility')
+ON CONFLICT (table_name) DO NOTHING;
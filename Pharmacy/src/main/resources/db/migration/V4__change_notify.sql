@@ -0,0 +1,54 @@
+-- Row change notifications for ChangeNotificationListener, so every app instance can drop
+-- its cached copy of a row another instance changed. Payload: table:op:id
+-- (id empty for TRUNCATE). Delivered on commit; identical payloads in one transaction
+-- are collapsed by PostgreSQL.
+SET LOCAL search_path = pharmacy;
+
+CREATE OR REPLACE FUNCTION notify_row_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    row_id text;
+BEGIN
+    IF TG_LEVEL = 'ROW' THEN
+        row_id := to_jsonb(CASE WHEN TG_OP = 'DELETE' THEN OLD ELSE NEW END) ->> TG_ARGV[0];
+    END IF;
+    PERFORM pg_notify('pharmacy_change', TG_TABLE_NAME || ':' || TG_OP || ':' || coalesce(row_id, ''));
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_product_notify ON product;
+CREATE TRIGGER trg_product_notify
+    AFTER INSERT OR UPDATE OR DELETE ON product
+    FOR EACH ROW EXECUTE FUNCTION notify_row_change('product_id');
+DROP TRIGGER IF EXISTS trg_product_notify_truncate ON product;
+CREATE TRIGGER trg_product_notify_truncate
+    AFTER TRUNCATE ON product
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_change();
+
+DROP TRIGGER IF EXISTS trg_medication_notify ON medication;
+CREATE TRIGGER trg_medication_notify
+    AFTER INSERT OR UPDATE OR DELETE ON medication
+    FOR EACH ROW EXECUTE FUNCTION notify_row_change('medication_id');
+DROP TRIGGER IF EXISTS trg_medication_notify_truncate ON medication;
+CREATE TRIGGER trg_medication_notify_truncate
+    AFTER TRUNCATE ON medication
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_change();
+
+DROP TRIGGER IF EXISTS trg_prescriber_notify ON prescriber;
+CREATE TRIGGER trg_prescriber_notify
+    AFTER INSERT OR UPDATE OR DELETE ON prescriber
+    FOR EACH ROW EXECUTE FUNCTION notify_row_change('prescriber_id');
+DROP TRIGGER IF EXISTS trg_prescriber_notify_truncate ON prescriber;
+CREATE TRIGGER trg_prescriber_notify_truncate
+    AFTER TRUNCATE ON prescriber
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_change();
+
+DROP TRIGGER IF EXISTS trg_app_user_notify ON app_user;
+CREATE TRIGGER trg_app_user_notify
+    AFTER INSERT OR UPDATE OR DELETE ON app_user
+    FOR EACH ROW EXECUTE FUNCTION notify_row_change('user_id');
+DROP TRIGGER IF EXISTS trg_app_user_notify_truncate ON app_user;
+CREATE TRIGGER trg_app_user_notify_truncate
+    AFTER TRUNCATE ON app_user
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_change();
@@ -0,0 +1,11 @@
+-- Patient change notifications for PatientPhoneIndex (see V4__change_notify.sql).
+SET LOCAL search_path = pharmacy;
+
+DROP TRIGGER IF EXISTS trg_patient_notify ON patient;
+CREATE TRIGGER trg_patient_notify
+    AFTER INSERT OR UPDATE OF phone OR DELETE ON patient
+    FOR EACH ROW EXECUTE FUNCTION notify_row_change('patient_id');
+DROP TRIGGER IF EXISTS trg_patient_notify_truncate ON patient;
+CREATE TRIGGER trg_patient_notify_truncate
+    AFTER TRUNCATE ON patient
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_change();
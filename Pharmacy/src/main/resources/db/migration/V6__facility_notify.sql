@@ -0,0 +1,21 @@
+-- Facility and prescriber affiliation change notifications for FacilityNearCache
+-- (see V4__change_notify.sql). prescriber_facility notifies with the prescriber id.
+SET LOCAL search_path = pharmacy;
+
+DROP TRIGGER IF EXISTS trg_facility_notify ON facility;
+CREATE TRIGGER trg_facility_notify
+    AFTER INSERT OR UPDATE OR DELETE ON facility
+    FOR EACH ROW EXECUTE FUNCTION notify_row_change('facility_id');
+DROP TRIGGER IF EXISTS trg_facility_notify_truncate ON facility;
+CREATE TRIGGER trg_facility_notify_truncate
+    AFTER TRUNCATE ON facility
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_change();
+
+DROP TRIGGER IF EXISTS trg_prescriber_facility_notify ON prescriber_facility;
+CREATE TRIGGER trg_prescriber_facility_notify
+    AFTER INSERT OR UPDATE OR DELETE ON prescriber_facility
+    FOR EACH ROW EXECUTE FUNCTION notify_row_change('prescriber_id');
+DROP TRIGGER IF EXISTS trg_prescriber_facility_notify_truncate ON prescriber_facility;
+CREATE TRIGGER trg_prescriber_facility_notify_truncate
+    AFTER TRUNCATE ON prescriber_facility
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_change();
@@ -0,0 +1,15 @@
+-- Work queue leases: a prescription claimed from a stage queue is assigned to the claiming
+-- user until lease_expires_at, after which it is returned to the queue.
+SET LOCAL search_path = pharmacy;
+
+ALTER TABLE prescription ADD COLUMN IF NOT EXISTS lease_expires_at timestamptz;
+
+-- next claimable rows of a stage, in claim order
+CREATE INDEX IF NOT EXISTS idx_prescription_claim_order
+    ON prescription(workflow_status, priority DESC, current_stage_entered_at, prescription_id)
+    WHERE workflow_status IN ('DATA_ENTRY_PENDING', 'DATA_REVIEW_PENDING', 'PRODUCT_PENDING', 'PRODUCT_REVIEW_PENDING');
+
+-- expired lease sweep
+CREATE INDEX IF NOT EXISTS idx_prescription_lease_expiry
+    ON prescription(lease_expires_at)
+    WHERE lease_expires_at IS NOT NULL;
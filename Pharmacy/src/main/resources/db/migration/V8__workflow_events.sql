@@ -0,0 +1,99 @@
+-- Workflow history and dashboard counters. Every change of a prescription's current_stage or
+-- workflow_status appends a row to prescription_workflow_event, and the per stage/status
+-- counts in workflow_status_count are adjusted in the same transaction, so the dashboard
+-- reads a handful of rows instead of counting prescriptions.
+SET LOCAL search_path = pharmacy;
+
+-- append-only: no foreign key, so history outlives deleted prescriptions
+CREATE TABLE IF NOT EXISTS prescription_workflow_event (
+    event_id            bigserial PRIMARY KEY,
+    prescription_id     bigint NOT NULL,
+    from_stage          workflow_stage,
+    from_status         workflow_status,
+    to_stage            workflow_stage,
+    to_status           workflow_status,
+    -- who held the prescription when it changed
+    assigned_to_user_id text,
+    occurred_at         timestamptz NOT NULL DEFAULT clock_timestamp()
+);
+CREATE INDEX IF NOT EXISTS idx_workflow_event_prescription
+    ON prescription_workflow_event(prescription_id, event_id);
+
+CREATE OR REPLACE FUNCTION reject_workflow_event_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    RAISE EXCEPTION 'prescription_workflow_event is append-only';
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_workflow_event_append_only ON prescription_workflow_event;
+CREATE TRIGGER trg_workflow_event_append_only
+    BEFORE UPDATE OR DELETE OR TRUNCATE ON prescription_workflow_event
+    FOR EACH STATEMENT EXECUTE FUNCTION reject_workflow_event_change();
+
+-- Counts are striped across slots picked by backend pid, so concurrent transitions into the
+-- same status update different rows instead of queueing on one. Readers sum the slots.
+CREATE TABLE IF NOT EXISTS workflow_status_count (
+    current_stage   workflow_stage NOT NULL,
+    workflow_status workflow_status NOT NULL,
+    slot            smallint NOT NULL,
+    count           bigint NOT NULL,
+    PRIMARY KEY (current_stage, workflow_status, slot)
+);
+
+CREATE OR REPLACE FUNCTION record_workflow_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    s smallint := pg_backend_pid() % 8;
+BEGIN
+    IF TG_OP = 'UPDATE'
+            AND OLD.current_stage IS NOT DISTINCT FROM NEW.current_stage
+            AND OLD.workflow_status IS NOT DISTINCT FROM NEW.workflow_status THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        INSERT INTO pharmacy.workflow_status_count AS c VALUES (OLD.current_stage, OLD.workflow_status, s, -1)
+        ON CONFLICT (current_stage, workflow_status, slot) DO UPDATE SET count = c.count - 1;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO pharmacy.workflow_status_count AS c VALUES (NEW.current_stage, NEW.workflow_status, s, 1)
+        ON CONFLICT (current_stage, workflow_status, slot) DO UPDATE SET count = c.count + 1;
+    END IF;
+    INSERT INTO pharmacy.prescription_workflow_event
+        (prescription_id, from_stage, from_status, to_stage, to_status, assigned_to_user_id)
+    VALUES (
+        CASE WHEN TG_OP = 'DELETE' THEN OLD.prescription_id ELSE NEW.prescription_id END,
+        CASE WHEN TG_OP = 'INSERT' THEN NULL ELSE OLD.current_stage END,
+        CASE WHEN TG_OP = 'INSERT' THEN NULL ELSE OLD.workflow_status END,
+        CASE WHEN TG_OP = 'DELETE' THEN NULL ELSE NEW.current_stage END,
+        CASE WHEN TG_OP = 'DELETE' THEN NULL ELSE NEW.workflow_status END,
+        CASE WHEN TG_OP = 'INSERT' THEN NEW.assigned_to_user_id ELSE OLD.assigned_to_user_id END);
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION reset_workflow_counts() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    DELETE FROM pharmacy.workflow_status_count;
+    RETURN NULL;
+END
+$$;
+
+-- seed the counts and install the triggers with no transition slipping in between
+LOCK TABLE prescription IN SHARE ROW EXCLUSIVE MODE;
+
+DELETE FROM workflow_status_count;
+INSERT INTO workflow_status_count (current_stage, workflow_status, slot, count)
+SELECT current_stage, workflow_status, 0, count(*)
+FROM prescription
+GROUP BY current_stage, workflow_status;
+
+DROP TRIGGER IF EXISTS trg_prescription_workflow_change ON prescription;
+CREATE TRIGGER trg_prescription_workflow_change
+    AFTER INSERT OR UPDATE OF current_stage, workflow_status OR DELETE ON prescription
+    FOR EACH ROW EXECUTE FUNCTION record_workflow_change();
+DROP TRIGGER IF EXISTS trg_prescription_workflow_truncate ON prescription;
+CREATE TRIGGER trg_prescription_workflow_truncate
+    AFTER TRUNCATE ON prescription
+    FOR EACH STATEMENT EXECUTE FUNCTION reset_workflow_counts();
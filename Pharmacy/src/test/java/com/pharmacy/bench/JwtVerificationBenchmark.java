@@ -0,0 +1,122 @@
+package com.pharmacy.bench;
+
+import com.pharmacy.model.enums.Role;
+import com.pharmacy.security.AuthenticatedUser;
+import com.pharmacy.security.TokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token work done by JwtAuthenticationFilter per request. {@code before} repeats the old
+ * path: derive the key and build a parser, parse to validate, then do it all again to read
+ * the subject. {@code singleParse} is {@link TokenProvider#verify} with the verified-token
+ * cache disabled, {@code cachedVerify} the same token hitting the cache.
+ * {@code cachedVerifyContended} has eight threads, each with its own user's token, hitting one
+ * shared cache the way concurrent requests do; the per-thread state above cannot show contention.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKeyForJwtVerification2024!!";
+
+    private TokenProvider uncached;
+    private TokenProvider cached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncached = new TokenProvider(SECRET, 3600, 0);
+        cached = new TokenProvider(SECRET, 3600, 10_000);
+        AuthenticatedUser user = new AuthenticatedUser(42L, "pharmacist1", null, Role.PHARMACIST);
+        token = cached.createToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @Benchmark
+    public String before() {
+        Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token);
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public Optional<AuthenticatedUser> singleParse() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public Optional<AuthenticatedUser> cachedVerify() {
+        return cached.verify(token);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Optional<AuthenticatedUser> cachedVerifyContended(SharedProvider shared, UserToken user) {
+        return shared.provider.verify(user.token);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedProvider {
+        TokenProvider provider;
+
+        @Setup
+        public void setUp() {
+            provider = new TokenProvider(SECRET, 3600, 10_000);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UserToken {
+        private static final AtomicLong USER_IDS = new AtomicLong();
+
+        String token;
+
+        @Setup
+        public void setUp() {
+            long id = USER_IDS.incrementAndGet();
+            AuthenticatedUser user = new AuthenticatedUser(id, "tech" + id, null, Role.PHARMACY_TECH);
+            token = new TokenProvider(SECRET, 3600, 0)
+                    .createToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,129 @@
+package com.pharmacy.bench;
+
+import com.pharmacy.dao.RowMappers;
+import com.pharmacy.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of mapping a product row by column name (the old mapRow) versus the
+ * index-based mapper from {@link RowMappers}. Run with {@code main} to get the
+ * allocation figures from the GC profiler alongside the timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final String[] COLUMNS = {
+            "product_id", "ndc", "name", "generic_name", "manufacturer", "dosage_form", "strength",
+            "is_rx", "is_vaccine", "unit_price", "stock_qty", "medication_id", "created_at", "updated_at"
+    };
+
+    private ResultSet rs;
+    private RowMapper<Product> indexed;
+
+    @Setup
+    public void setUp() {
+        Object[] values = {
+                42L, "00071-0155-23", "Lipitor 10mg", "atorvastatin", "Pfizer", "Tablet", "10 mg",
+                true, false, 12.5d, 300, 7L,
+                Timestamp.valueOf("2024-01-02 10:15:30"), Timestamp.valueOf("2024-03-04 08:00:00")
+        };
+        rs = stubResultSet(values);
+        indexed = RowMappers.PRODUCT.mapper();
+    }
+
+    @Benchmark
+    public Product byName() throws SQLException {
+        Product p = new Product();
+        p.setProductId(rs.getLong("product_id"));
+        p.setNdc(rs.getString("ndc"));
+        p.setName(rs.getString("name"));
+        p.setGenericName(rs.getString("generic_name"));
+        p.setManufacturer(rs.getString("manufacturer"));
+        p.setDosageForm(rs.getString("dosage_form"));
+        p.setStrength(rs.getString("strength"));
+        p.setRx(rs.getBoolean("is_rx"));
+        p.setVaccine(rs.getBoolean("is_vaccine"));
+        p.setUnitPrice(rs.getDouble("unit_price"));
+        p.setStockQty(rs.getInt("stock_qty"));
+        p.setMedicationId(rs.getLong("medication_id"));
+        if (rs.getTimestamp("created_at") != null) {
+            p.setCreatedAt(rs.getTimestamp("created_at").toInstant().atOffset(OffsetDateTime.now().getOffset()));
+        }
+        if (rs.getTimestamp("updated_at") != null) {
+            p.setUpdatedAt(rs.getTimestamp("updated_at").toInstant().atOffset(OffsetDateTime.now().getOffset()));
+        }
+        return p;
+    }
+
+    @Benchmark
+    public Product byIndex() throws SQLException {
+        return indexed.mapRow(rs, 0);
+    }
+
+    /**
+     * A result set positioned on one row. Name lookups go through a map the way a driver's
+     * findColumn does, so the by-name path pays a comparable lookup cost.
+     */
+    private static ResultSet stubResultSet(Object[] values) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            index.put(COLUMNS[i], i + 1);
+        }
+        ResultSetMetaData md = (ResultSetMetaData) Proxy.newProxyInstance(
+                RowMapperBenchmark.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> COLUMNS.length;
+                    case "getColumnLabel", "getColumnName" -> COLUMNS[(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (ResultSet) Proxy.newProxyInstance(
+                RowMapperBenchmark.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getMetaData")) {
+                        return md;
+                    }
+                    if (method.getName().equals("wasNull")) {
+                        return false;
+                    }
+                    Object key = args[0];
+                    int col = key instanceof String name ? index.get(name.toLowerCase()) : (Integer) key;
+                    return values[col - 1];
+                });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RowMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,158 @@
+package com.pharmacy.service;
+
+import com.pharmacy.dao.DataVersion;
+import com.pharmacy.model.Medication;
+import com.pharmacy.model.Product;
+import com.pharmacy.model.enums.ProductStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotFileTest {
+
+    private static final DataVersion VERSION = new DataVersion("product", 7, Instant.ofEpochMilli(1_700_000_000_123L));
+
+    @TempDir
+    Path dir;
+
+    private static Product fullProduct() {
+        Product p = new Product();
+        p.setProductId(11L);
+        p.setNdc("00093-7146-56");
+        p.setName("Amoxicillin 500 mg");
+        p.setGenericName("amoxicillin");
+        p.setManufacturer("Teva");
+        p.setDosageForm("capsule");
+        p.setStrength("500 mg");
+        p.setStatus(ProductStatus.VERIFIED);
+        p.setRx(true);
+        p.setVaccine(false);
+        p.setUnitPrice(0.37);
+        p.setStockQty(1200);
+        p.setMedicationId(5L);
+        p.setCreatedAt(OffsetDateTime.of(2024, 3, 1, 9, 30, 0, 0, ZoneOffset.ofHours(-5)));
+        p.setUpdatedAt(OffsetDateTime.of(2024, 6, 2, 14, 0, 0, 123_000_000, ZoneOffset.UTC));
+        return p;
+    }
+
+    // every nullable field null, the generic name shared with the full product
+    private static Product sparseProduct() {
+        Product p = new Product();
+        p.setProductId(12L);
+        p.setGenericName("amoxicillin");
+        p.setVaccine(true);
+        p.setStockQty(-3);
+        return p;
+    }
+
+    private static Medication medication(long id, String name, String genericName, String brandName) {
+        Medication m = new Medication();
+        m.setMedicationId(id);
+        m.setName(name);
+        m.setGenericName(genericName);
+        m.setBrandName(brandName);
+        return m;
+    }
+
+    private Path written() throws IOException {
+        Path file = dir.resolve("catalog.bin");
+        CatalogSnapshotFile.write(file, VERSION, List.of(fullProduct(), sparseProduct()),
+                List.of(medication(5, "Amoxicillin", "amoxicillin", "Amoxil"), medication(6, "Ümlaut", null, null)),
+                Map.of("00093-7146-56", 5L, "0781-2613-01", 6L));
+        return file;
+    }
+
+    private static void assertSameProduct(Product expected, Product actual) {
+        assertEquals(expected.getProductId(), actual.getProductId());
+        assertEquals(expected.getNdc(), actual.getNdc());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getGenericName(), actual.getGenericName());
+        assertEquals(expected.getManufacturer(), actual.getManufacturer());
+        assertEquals(expected.getDosageForm(), actual.getDosageForm());
+        assertEquals(expected.getStrength(), actual.getStrength());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.isRx(), actual.isRx());
+        assertEquals(expected.isVaccine(), actual.isVaccine());
+        assertEquals(expected.getUnitPrice(), actual.getUnitPrice());
+        assertEquals(expected.getStockQty(), actual.getStockQty());
+        assertEquals(expected.getMedicationId(), actual.getMedicationId());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+    }
+
+    @Test
+    void roundTripsEveryField() throws IOException {
+        CatalogSnapshotFile.Contents c = CatalogSnapshotFile.read(written());
+
+        assertNotNull(c);
+        assertEquals(VERSION, c.productVersion());
+        assertEquals(2, c.products().size());
+        assertSameProduct(fullProduct(), c.products().get(0));
+        assertSameProduct(sparseProduct(), c.products().get(1));
+        assertEquals(2, c.medications().size());
+        Medication m = c.medications().get(0);
+        assertEquals(5, m.getMedicationId());
+        assertEquals("Amoxicillin", m.getName());
+        assertEquals("amoxicillin", m.getGenericName());
+        assertEquals("Amoxil", m.getBrandName());
+        Medication unbranded = c.medications().get(1);
+        assertEquals("Ümlaut", unbranded.getName());
+        assertNull(unbranded.getGenericName());
+        assertNull(unbranded.getBrandName());
+        assertEquals(Map.of("00093-7146-56", 5L, "0781-2613-01", 6L), c.medicationIdsByNdc());
+    }
+
+    @Test
+    void roundTripsAnEmptyCatalog() throws IOException {
+        Path file = dir.resolve("empty.bin");
+        CatalogSnapshotFile.write(file, VERSION, List.of(), List.of(), Map.of());
+        CatalogSnapshotFile.Contents c = CatalogSnapshotFile.read(file);
+
+        assertNotNull(c);
+        assertTrue(c.products().isEmpty());
+        assertTrue(c.medications().isEmpty());
+        assertTrue(c.medicationIdsByNdc().isEmpty());
+    }
+
+    @Test
+    void readsCorruptFileAsAbsent() throws IOException {
+        Path file = written();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x40;
+        Files.write(file, bytes);
+
+        assertNull(CatalogSnapshotFile.read(file));
+    }
+
+    @Test
+    void readsTruncatedFileAsAbsent() throws IOException {
+        Path file = written();
+        long size = Files.size(file);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(size - 10);
+        }
+        assertNull(CatalogSnapshotFile.read(file));
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(20);
+        }
+        assertNull(CatalogSnapshotFile.read(file));
+    }
+
+    @Test
+    void readsMissingFileAsAbsent() throws IOException {
+        assertNull(CatalogSnapshotFile.read(dir.resolve("missing.bin")));
+    }
+}
@@ -0,0 +1,131 @@
+package com.pharmacy.service;
+
+import com.pharmacy.model.enums.WorkflowStage;
+import com.pharmacy.service.WorkQueueScheduler.Entry;
+import com.pharmacy.service.WorkQueueScheduler.Heap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkQueueSchedulerHeapTest {
+
+    private static Entry entry(long id, boolean priority, long deadline, long stageEnteredAt) {
+        return new Entry(id, 1, WorkflowStage.DATA_ENTRY, priority, deadline, stageEnteredAt);
+    }
+
+    private static void kill(Heap heap, Entry e) {
+        e.live = false;
+        heap.markDead();
+    }
+
+    private static List<Long> best(Heap heap, int k) {
+        List<Entry> out = new ArrayList<>();
+        heap.best(k, out);
+        return out.stream().map(e -> e.prescriptionId).toList();
+    }
+
+    @Test
+    void ordersByPriorityThenDeadlineThenStageTimeThenId() {
+        Heap heap = new Heap();
+        heap.add(entry(1, false, 100, 10));
+        heap.add(entry(2, true, 500, 10));
+        heap.add(entry(3, false, 100, 5));
+        heap.add(entry(4, false, 50, 90));
+        heap.add(entry(5, false, 100, 5));
+
+        assertEquals(List.of(2L, 4L, 3L, 5L, 1L), best(heap, 10));
+        assertEquals(List.of(2L, 4L), best(heap, 2));
+    }
+
+    @Test
+    void bestSkipsDeadEntries() {
+        Heap heap = new Heap();
+        List<Entry> entries = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            Entry e = entry(id, false, id * 10, 0);
+            entries.add(e);
+            heap.add(e);
+        }
+        // below the top, so they stay in the array until compacted
+        kill(heap, entries.get(1));
+        kill(heap, entries.get(4));
+        kill(heap, entries.get(5));
+
+        assertEquals(10, heap.size);
+        assertEquals(7, heap.live());
+        assertEquals(List.of(1L, 3L, 4L, 7L), best(heap, 4));
+        assertEquals(List.of(1L, 3L, 4L, 7L, 8L, 9L, 10L), best(heap, 100));
+    }
+
+    @Test
+    void dropsDeadEntriesFromTheTop() {
+        Heap heap = new Heap();
+        List<Entry> entries = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            Entry e = entry(id, false, id, 0);
+            entries.add(e);
+            heap.add(e);
+        }
+        kill(heap, entries.get(1));
+        kill(heap, entries.get(0));
+
+        assertEquals(3, heap.size);
+        assertEquals(0, heap.dead);
+        assertEquals(List.of(3L, 4L, 5L), best(heap, 5));
+    }
+
+    @Test
+    void compactsOnceDeadEntriesOutnumberLiveOnes() {
+        Heap heap = new Heap();
+        List<Entry> entries = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            Entry e = entry(id, false, id, 0);
+            entries.add(e);
+            heap.add(e);
+        }
+        // every even id: none of them is ever the top while the odd ones live
+        for (int i = 1; i < 40; i += 2) {
+            kill(heap, entries.get(i));
+        }
+        assertEquals(40, heap.size);
+        assertEquals(20, heap.dead);
+
+        kill(heap, entries.get(38));
+
+        assertEquals(19, heap.size);
+        assertEquals(0, heap.dead);
+        List<Long> expected = new ArrayList<>();
+        for (long id = 1; id < 39; id += 2) {
+            expected.add(id);
+        }
+        assertEquals(expected, best(heap, 100));
+
+        // still a valid heap after compaction
+        heap.add(entry(100, true, 1000, 0));
+        assertEquals(List.of(100L, 1L, 3L), best(heap, 3));
+    }
+
+    @Test
+    void agreesWithSortingTheLiveEntries() {
+        Random random = new Random(11);
+        Heap heap = new Heap();
+        List<Entry> live = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            Entry e = entry(id, random.nextInt(10) == 0, random.nextInt(500), random.nextInt(500));
+            heap.add(e);
+            live.add(e);
+            if (random.nextInt(3) == 0) {
+                kill(heap, live.remove(random.nextInt(live.size())));
+            }
+        }
+        live.sort(WorkQueueScheduler.ORDER);
+
+        assertEquals(live.size(), heap.live());
+        assertEquals(live.subList(0, 25).stream().map(e -> e.prescriptionId).toList(), best(heap, 25));
+        assertEquals(live.stream().map(e -> e.prescriptionId).toList(), best(heap, live.size()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.pharmacy.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    private static final int N = 20_000;
+
+    // NPIs are ten digits; consecutive ones are the hardest case for the hash spread
+    private static String npi(long i) {
+        return Long.toString(1_000_000_000L + i);
+    }
+
+    @Test
+    void neverForgetsAnAddedValue() {
+        BloomFilter filter = BloomFilter.create(N, 0.01);
+        for (int i = 0; i < N; i++) {
+            filter.add(npi(i));
+        }
+        for (int i = 0; i < N; i++) {
+            assertTrue(filter.mightContain(npi(i)), npi(i));
+        }
+    }
+
+    @Test
+    void neverForgetsValuesAddedConcurrently() throws InterruptedException {
+        BloomFilter filter = BloomFilter.create(N, 0.01);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                for (int i = offset; i < N; i += 4) {
+                    filter.add(npi(i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < N; i++) {
+            assertTrue(filter.mightContain(npi(i)), npi(i));
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsNearTheConfiguredOne() {
+        for (double fpp : new double[]{0.01, 0.001}) {
+            BloomFilter filter = BloomFilter.create(N, fpp);
+            for (int i = 0; i < N; i++) {
+                filter.add(npi(i));
+            }
+            Random random = new Random(42);
+            int probes = 200_000;
+            int falsePositives = 0;
+            for (int i = 0; i < probes; i++) {
+                if (filter.mightContain(npi(N + random.nextInt(1_000_000_000)))) {
+                    falsePositives++;
+                }
+            }
+            double rate = (double) falsePositives / probes;
+            assertTrue(rate < fpp * 1.5, "rate " + rate + " for fpp " + fpp);
+            assertTrue(rate > fpp / 2, "rate " + rate + " for fpp " + fpp);
+        }
+    }
+
+    @Test
+    void rejectsOutOfRangeRates() {
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(10, 1));
+    }
+}
@@ -0,0 +1,85 @@
+package com.pharmacy.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongObjectMapTest {
+
+    @Test
+    void keepsEveryEntryAcrossResizes() {
+        LongObjectMap<String> map = new LongObjectMap<>(1);
+        for (long k = 0; k < 10_000; k++) {
+            assertNull(map.put(k * 7919, "v" + k));
+        }
+        assertEquals(10_000, map.size());
+        for (long k = 0; k < 10_000; k++) {
+            assertEquals("v" + k, map.get(k * 7919));
+        }
+        assertNull(map.get(1));
+    }
+
+    @Test
+    void replacesTheValueOfAnExistingKey() {
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+        assertNull(map.put(42, "a"));
+        assertEquals("a", map.put(42, "b"));
+        assertEquals("b", map.get(42));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void handlesZeroAndNegativeKeys() {
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+        map.put(0, "zero");
+        map.put(-1, "minus one");
+        map.put(Long.MIN_VALUE, "min");
+        map.put(Long.MAX_VALUE, "max");
+
+        assertEquals("zero", map.get(0));
+        assertEquals("minus one", map.get(-1));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertEquals("max", map.get(Long.MAX_VALUE));
+        assertNull(map.get(1));
+        assertEquals(4, map.size());
+    }
+
+    // keys differing only in their high bits, and multiples of the table size, share low bits
+    @Test
+    void separatesKeysThatCollide() {
+        LongObjectMap<Long> map = new LongObjectMap<>(16);
+        for (long i = 1; i <= 64; i++) {
+            map.put(i << 32, i);
+            map.put(i * 64, -i);
+        }
+        assertEquals(128, map.size());
+        for (long i = 1; i <= 64; i++) {
+            assertEquals(i, map.get(i << 32));
+            assertEquals(-i, map.get(i * 64));
+        }
+    }
+
+    @Test
+    void agreesWithHashMap() {
+        Random random = new Random(7);
+        LongObjectMap<Integer> map = new LongObjectMap<>(8);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(20_000) - 10_000;
+            assertEquals(expected.put(key, i), map.put(key, i));
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = -10_000; key < 10_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    void rejectsNullValues() {
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectMap<String>(4).put(1, null));
+    }
+}
@@ -0,0 +1,80 @@
+// Server-sent workflow events (GET /api/workflow/stream). EventSource cannot send the bearer
+// token, so the stream is read with fetch and parsed here. Reconnects with backoff.
+
+const API_BASE = import.meta.env.VITE_API_BASE || "/api";
+
+const WorkflowStreamService = {
+    // handlers: { workflow(change), counts(list), resync(), status(connected) }
+    // filters: { facilities: [ids], stages: [WorkflowStage names] }
+    // Returns a function that closes the stream.
+    connect: (handlers, filters = {}) => {
+        const params = new URLSearchParams();
+        (filters.facilities || []).forEach((id) => params.append("facility", id));
+        (filters.stages || []).forEach((stage) => params.append("stage", stage));
+        const url = `${API_BASE}/workflow/stream${params.toString() ? `?${params}` : ""}`;
+
+        let controller = null;
+        let closed = false;
+        let backoff = 1000;
+
+        const dispatch = (name, data) => {
+            const handler = handlers[name];
+            if (handler) {
+                handler(data ? JSON.parse(data) : null);
+            }
+        };
+
+        const run = async () => {
+            while (!closed) {
+                controller = new AbortController();
+                try {
+                    const token = localStorage.getItem("token");
+                    const response = await fetch(url, {
+                        headers: token ? { Authorization: `Bearer ${token}`, Accept: "text/event-stream" } : {},
+                        signal: controller.signal,
+                    });
+                    if (!response.ok) {
+                        throw new Error(`Workflow stream failed: ${response.status}`);
+                    }
+                    handlers.status?.(true);
+                    backoff = 1000;
+                    const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+                    let buffer = "";
+                    for (;;) {
+                        const { value, done } = await reader.read();
+                        if (done) break;
+                        buffer += value;
+                        let end;
+                        while ((end = buffer.indexOf("\n\n")) >= 0) {
+                            const block = buffer.slice(0, end);
+                            buffer = buffer.slice(end + 2);
+                            let name = "message";
+                            const data = [];
+                            for (const line of block.split("\n")) {
+                                if (line.startsWith("event:")) name = line.slice(6).trim();
+                                else if (line.startsWith("data:")) data.push(line.slice(5).replace(/^ /, ""));
+                            }
+                            if (data.length) dispatch(name, data.join("\n"));
+                        }
+                    }
+                } catch (error) {
+                    if (closed) return;
+                    console.error(error);
+                }
+                handlers.status?.(false);
+                // anything may have changed while disconnected
+                handlers.resync?.();
+                await new Promise((resolve) => setTimeout(resolve, backoff));
+                backoff = Math.min(backoff * 2, 30000);
+            }
+        };
+
+        run();
+        return () => {
+            closed = true;
+            controller?.abort();
+        };
+    },
+};
+
+export default WorkflowStreamService;